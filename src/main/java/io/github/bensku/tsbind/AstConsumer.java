@@ -37,4 +37,36 @@ public interface AstConsumer<T> {
 	 * @return Stream of results.
 	 */
 	Stream<Result<T>> consume(Map<String, TypeDefinition> types);
+	
+	/**
+	 * Gets the part a type belongs to. Types of a part are consumed together
+	 * with {@link #consumePart(Map, Map)}, and do not affect results of
+	 * other parts.
+	 * @param type Type.
+	 * @return Name of part, or null if the type is not consumed at all.
+	 */
+	default String part(TypeDefinition type) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support consuming types in parts");
+	}
+	
+	/**
+	 * Consumes types of one part. Once all parts have been consumed,
+	 * {@link #finish()} must be called.
+	 * @param types Types of the part.
+	 * @param typeTable Types of all parts, for looking up e.g. supertypes.
+	 * Types of other parts may be summaries without constructors or inner
+	 * types.
+	 * @return Stream of results.
+	 */
+	default Stream<Result<T>> consumePart(Map<String, TypeDefinition> types, Map<String, TypeDefinition> typeTable) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support consuming types in parts");
+	}
+	
+	/**
+	 * Produces results that depend on all parts.
+	 * @return Stream of results.
+	 */
+	default Stream<Result<T>> finish() {
+		return Stream.empty();
+	}
 }
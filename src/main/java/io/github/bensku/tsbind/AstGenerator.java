@@ -6,7 +6,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -18,6 +17,7 @@ import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.BodyDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
 import com.github.javaparser.ast.body.EnumConstantDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
@@ -27,7 +27,6 @@ import com.github.javaparser.ast.nodeTypes.NodeWithModifiers;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.declarations.HasAccessSpecifier;
-import com.github.javaparser.resolution.declarations.ResolvedConstructorDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedParameterDeclaration;
@@ -35,10 +34,11 @@ import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclar
 import com.github.javaparser.resolution.declarations.ResolvedValueDeclaration;
 import com.github.javaparser.resolution.types.ResolvedReferenceType;
 
-import io.github.bensku.tsbind.ast.AstNode;
 import io.github.bensku.tsbind.ast.Constructor;
 import io.github.bensku.tsbind.ast.Field;
 import io.github.bensku.tsbind.ast.Getter;
+import io.github.bensku.tsbind.ast.Javadoc;
+import io.github.bensku.tsbind.ast.JavadocStore;
 import io.github.bensku.tsbind.ast.Member;
 import io.github.bensku.tsbind.ast.Method;
 import io.github.bensku.tsbind.ast.Parameter;
@@ -56,14 +56,41 @@ public class AstGenerator {
 	private final JavaParser parser;
 	
 	/**
-	 * Blacklisted type name fragments. Types that match any of these are never
-	 * emitted. All {@link Member members} that contain them are also ignored.
+	 * Blacklisted types. Types that match it are never emitted.
+	 * All {@link Member members} that contain them are also ignored.
 	 */
-	private final List<String> blacklist;
+	private final TypeBlacklist blacklist;
 	
-	public AstGenerator(JavaParser parser, List<String> blacklist) {
+	/**
+	 * Method names of non-public supertype hierarchies.
+	 */
+	private final MethodNameCache methodNames;
+	
+	/**
+	 * If method bodies and field initializers should be stripped before
+	 * parsing. See {@link BodyStripper}.
+	 */
+	private final boolean signaturesOnly;
+	
+	/**
+	 * Resolves member types without symbol solver when possible, or null
+	 * if symbol solver should always be used.
+	 */
+	private final SyntacticTypeResolver syntacticTypes;
+	
+	/**
+	 * Where Javadoc text is stored, or null if it should be kept in memory.
+	 */
+	private final JavadocStore javadocs;
+	
+	public AstGenerator(JavaParser parser, TypeBlacklist blacklist, MethodNameCache methodNames,
+			boolean signaturesOnly, SyntacticTypeResolver syntacticTypes, JavadocStore javadocs) {
 		this.parser = parser;
 		this.blacklist = blacklist;
+		this.methodNames = methodNames;
+		this.signaturesOnly = signaturesOnly;
+		this.syntacticTypes = syntacticTypes;
+		this.javadocs = javadocs;
 	}
 	
 	/**
@@ -74,7 +101,12 @@ public class AstGenerator {
 	public Optional<TypeDefinition> parseType(SourceUnit source) {
 		// FIXME don't log errors here, CLI might not be only user in future
 		
-		ParseResult<CompilationUnit> result = parser.parse(source.code);
+		ParseResult<CompilationUnit> result = signaturesOnly ? parser.parse(BodyStripper.strip(source.code))
+				: parser.parse(source.reader());
+		if (signaturesOnly && !result.isSuccessful()) {
+			// Stripping might have broken something unusual, so try with full source
+			result = parser.parse(source.reader());
+		}
 		if (!result.isSuccessful()) {
 			//throw new IllegalArgumentException("failed to parse given source code: " + result.getProblems());
 			System.err.println("failed to parse " + source.name + ": " + result.getProblems());
@@ -110,47 +142,42 @@ public class AstGenerator {
 		return params;
 	}
 	
-	private String getJavadoc(Node node) {
-		return node.getComment().map(comment -> {
-			if (comment.isJavadocComment()) {
-				return comment.asJavadocComment().getContent();
-			}
-			return null;
-		}).orElse(null);
-	}
-	
 	/**
-	 * Checks if a member is or uses blacklisted types.
-	 * @param member Member to check.
-	 * @return Whether the member should be omitted.
+	 * Resolves parameter types without symbol solver.
+	 * @param member Method or constructor.
+	 * @param params Its parameters.
+	 * @param nullable Which parameters are nullable.
+	 * @return Parameters, or empty optional if symbol solver is needed.
 	 */
-	private boolean isBlacklisted(AstNode node) {
-		// If this is a type reference or declaration, check if it is blacklisted
-		if (node instanceof TypeRef || node instanceof TypeDefinition) {
-			TypeRef ref = node instanceof TypeDefinition ? ((TypeDefinition) node).ref : (TypeRef) node;
-			String name = ref.name();
-			for (String fragment : blacklist) {
-				if (name.contains(fragment)) {
-					return true; // Blacklisted
-				}
+	private Optional<List<Parameter>> getParameters(BodyDeclaration<?> member,
+			List<com.github.javaparser.ast.body.Parameter> params, Boolean[] nullable) {
+		List<Parameter> result = new ArrayList<>(params.size());
+		for (int i = 0; i < params.size(); i++) {
+			com.github.javaparser.ast.body.Parameter param = params.get(i);
+			TypeRef type = syntacticTypes.resolve(param, member).orElse(null);
+			if (type == null) {
+				return Optional.empty();
 			}
-			return false; // Not blacklisted!
+			result.add(new Parameter(param.getNameAsString(), nullable[i] ? TypeRef.nullable(type) : type,
+					param.isVarArgs()));
 		}
-		
-		// Check non-type node children
-		AtomicBoolean childBlacklisted = new AtomicBoolean(false);
-		node.walk(n -> {
-			// Avoid infinite recursion by excluding node given to us as parameter
-			if (n != node && isBlacklisted(n)) {
-				childBlacklisted.setPlain(true); // Blacklisted
+		return Optional.of(result);
+	}
+	
+	private Javadoc getJavadoc(Node node) {
+		String text = node.getComment().map(comment -> {
+			if (comment.isJavadocComment()) {
+				return comment.asJavadocComment().getContent();
 			}
-		});
-		return childBlacklisted.getPlain();
+			return null;
+		}).orElse(null);
+		return javadocs != null ? javadocs.put(text) : Javadoc.of(text);
 	}
 	
 	private void processMember(String typeName, TypeDeclaration<?> type, TypeDefinition.Kind typeKind,
 			Set<String> privateOverrides, boolean lombokGetter, boolean lombokSetter,
 			BodyDeclaration<?> member, Consumer<Member> addMember) {
+		ParseWatchdog.check(); // Give up on files that take too long
 		boolean isPublic = isPublic(type, member);
 		if (member.isFieldDeclaration()) {
 			// Even private fields may need Lombok getter/setter
@@ -175,13 +202,21 @@ public class AstGenerator {
 			TypeDeclaration<?> inner = member.asTypeDeclaration();
 			processType(typeName + "." + inner.getNameAsString(), inner).ifPresent(addMember);
 		} else if (member.isConstructorDeclaration()) {
-			ResolvedConstructorDeclaration constructor = member.asConstructorDeclaration().resolve();
-			Boolean[] nullable = member.asConstructorDeclaration().getParameters().stream()
+			ConstructorDeclaration decl = member.asConstructorDeclaration();
+			Boolean[] nullable = decl.getParameters().stream()
 					.map(param -> param.isAnnotationPresent("Nullable")).toArray(Boolean[]::new);
 			// Constructor might be generic, but AFAIK TypeScript doesn't support that
 			// (constructors of generic classes are, of course, supported)
 			// Private constructors are not yet needed, so they won't exist
-			addMember.accept(new Constructor(constructor.getName(), getParameters(constructor, nullable), getJavadoc(member), true));
+			Optional<List<Parameter>> params = syntacticTypes != null
+					? getParameters(decl, decl.getParameters(), nullable) : Optional.empty();
+			if (syntacticTypes != null) {
+				syntacticTypes.count(params.isPresent());
+			}
+			if (params.isEmpty()) {
+				params = Optional.of(getParameters(decl.resolve(), nullable));
+			}
+			addMember.accept(new Constructor(decl.getNameAsString(), params.get(), getJavadoc(member), true));
 		} else if (member.isMethodDeclaration()) {
 			addMember.accept(processMethod(member.asMethodDeclaration(), privateOverrides));
 		}
@@ -194,7 +229,7 @@ public class AstGenerator {
 		
 		// Create a lambda to support filtering members before they're added
 		Consumer<Member> addMember = (member) -> {
-			if (!isBlacklisted(member)) {
+			if (!blacklist.isBlacklisted(member)) {
 				members.add(member);
 			}
 		};
@@ -225,7 +260,7 @@ public class AstGenerator {
 			typeKind = decl.isInterface() ? TypeDefinition.Kind.INTERFACE : TypeDefinition.Kind.CLASS;
 			if (typeKind == TypeDefinition.Kind.INTERFACE) {
 				// Make interface functional if annotated as such
-				if (type.resolve().hasAnnotation("FunctionalInterface")) {
+				if (resolved.hasAnnotation("FunctionalInterface")) {
 					typeKind = TypeDefinition.Kind.FUNCTIONAL_INTERFACE;
 				}
 			}
@@ -234,11 +269,11 @@ public class AstGenerator {
 			PublicFilterResult implementedResult = filterPublicTypes(decl.getImplementedTypes());
 			superTypes = extendedResult.publicTypes.stream()
 					.map(TypeRef::fromType)
-					.filter(t -> !isBlacklisted(t))
+					.filter(t -> !blacklist.isBlacklisted(t))
 					.toList();
 			interfaces = implementedResult.publicTypes.stream()
 					.map(TypeRef::fromType)
-					.filter(t -> !isBlacklisted(t))
+					.filter(t -> !blacklist.isBlacklisted(t))
 					.toList();
 			
 			extendedResult.privateTypes.forEach(t -> privateOverrides.addAll(getAllMethods(t)));
@@ -289,7 +324,7 @@ public class AstGenerator {
 		}
 		
 		// Create type definition
-		String javadoc = getJavadoc(type);
+		Javadoc javadoc = getJavadoc(type);
 		return Optional.of(new TypeDefinition(javadoc, type.isStatic(), typeRef, typeKind, isAbstract,
 				superTypes, interfaces, members));
 	}
@@ -320,22 +355,27 @@ public class AstGenerator {
 		if (decl == null) {
 			return Collections.emptySet();
 		}
-		Set<String> names = type.getAllMethods().stream().map(method -> method.getName())
-				.collect(Collectors.toCollection(HashSet::new));
-		if (decl.isClass()) {
-			decl.asClass().getSuperClass().ifPresent(c
-					-> names.addAll(getAllMethods(c)));
-			decl.asClass().getInterfaces().forEach(i
-					-> names.addAll(getAllMethods(i)));
-		} else if (decl.isInterface()) {
-			decl.asInterface().getInterfacesExtended().forEach(i
-					-> names.addAll(getAllMethods(i)));
-		}
-		return names;
+		// Type arguments don't affect method names, so qualified name is enough
+		return methodNames.get(decl.getQualifiedName(), () -> {
+			Set<String> names = type.getAllMethods().stream().map(method -> method.getName())
+					.collect(Collectors.toCollection(HashSet::new));
+			if (decl.isClass()) {
+				decl.asClass().getSuperClass().ifPresent(c
+						-> names.addAll(getAllMethods(c)));
+				decl.asClass().getInterfaces().forEach(i
+						-> names.addAll(getAllMethods(i)));
+			} else if (decl.isInterface()) {
+				decl.asInterface().getInterfacesExtended().forEach(i
+						-> names.addAll(getAllMethods(i)));
+			}
+			return names;
+		});
 	}
 	
 	private boolean isPublic(TypeDeclaration<?> type, BodyDeclaration<?> member) {
-		// JPMS is ignored for now, would need to parse module infos for that
+		// Exports are checked only by SourceDiscovery, for source roots (after --offset) that
+		// have module-info.java at top level; --inClasses roots and roots that contain several
+		// modules (e.g. src.zip without --offset) are not filtered by JPMS at all
 		AccessSpecifier access = (member instanceof NodeWithModifiers<?>)
 				? ((NodeWithModifiers<?>) member).getAccessSpecifier() : AccessSpecifier.PACKAGE_PRIVATE;
 		// Members specified as public are ALWAYS public
@@ -366,35 +406,56 @@ public class AstGenerator {
 	private Method processMethod(MethodDeclaration member, Set<String> privateOverrides) {
 		boolean isPublic = true; // Private methods are not yet needed, so they won't exist
 		
-		ResolvedMethodDeclaration method = member.asMethodDeclaration().resolve();
 		boolean nullableReturn = member.isAnnotationPresent("Nullable");
 		Boolean[] nullableParams = member.getParameters().stream()
 				.map(param -> param.isAnnotationPresent("Nullable")).toArray(Boolean[]::new);
 		
-		String name = method.getName();
-		TypeRef returnType = TypeRef.fromType(method.getReturnType(), nullableReturn);
-		String methodDoc = getJavadoc(member);
+		String name = member.getNameAsString();
+		boolean isStatic = member.isStatic();
+		TypeRef returnType = null;
+		List<Parameter> params = null;
+		if (syntacticTypes != null) {
+			returnType = syntacticTypes.resolve(member.getType(), member).orElse(null);
+			if (returnType != null) {
+				params = getParameters(member, member.getParameters(), nullableParams).orElse(null);
+			}
+			syntacticTypes.count(params != null);
+		}
+		List<TypeRef> typeParams;
+		if (params != null) {
+			typeParams = member.getTypeParameters().stream()
+					.map(param -> TypeRef.fromName(param.getNameAsString()))
+					.collect(Collectors.toList());
+		} else { // Ask symbol solver
+			ResolvedMethodDeclaration method = member.resolve();
+			returnType = TypeRef.fromType(method.getReturnType());
+			params = getParameters(method, nullableParams);
+			typeParams = method.getTypeParameters().stream().map(TypeRef::fromDeclaration).collect(Collectors.toList());
+		}
+		if (nullableReturn) {
+			returnType = TypeRef.nullable(returnType);
+		}
+		
+		Javadoc methodDoc = getJavadoc(member);
 		boolean override = !privateOverrides.contains(name) && member.getAnnotationByClass(Override.class).isPresent();
 		// boolean getters and setters are kept as regular methods to prevent confusing naming
 		if (name.length() > 3 && name.startsWith("get") && returnType != TypeRef.VOID
-				&& returnType != TypeRef.BOOLEAN && method.getNumberOfParams() == 0
-				&& method.getTypeParameters().isEmpty()) {
+				&& returnType != TypeRef.BOOLEAN && params.isEmpty() && typeParams.isEmpty()) {
 			// GraalJS will make this getter work, somehow
-			return new Getter(name, returnType, methodDoc, isPublic, method.isStatic(), override);
-		} else if (name.length() > 3 && name.startsWith("set") && method.getNumberOfParams() == 1
-				&& TypeRef.fromType(method.getParam(0).getType()) != TypeRef.BOOLEAN
-				&& method.getTypeParameters().isEmpty()) {
+			return new Getter(name, returnType, methodDoc, isPublic, isStatic, override);
+		} else if (name.length() > 3 && name.startsWith("set") && params.size() == 1
+				&& nonNullable(params.get(0).type) != TypeRef.BOOLEAN && typeParams.isEmpty()) {
 			// GraalJS will make this setter work, somehow
-			return new Setter(name, TypeRef.fromType(method.getParam(0).getType(),
-					nullableParams[0]), methodDoc, isPublic, method.isStatic(), override);
+			return new Setter(name, params.get(0).type, methodDoc, isPublic, isStatic, override);
 		} else { // Normal method
-			// Resolve type parameters and add to member list
-			return new Method(name, returnType, getParameters(method, nullableParams),
-					method.getTypeParameters().stream().map(TypeRef::fromDeclaration).collect(Collectors.toList()),
-					methodDoc, isPublic, method.isStatic(), override);
+			return new Method(name, returnType, params, typeParams, methodDoc, isPublic, isStatic, override);
 		}
 	}
 	
+	private static TypeRef nonNullable(TypeRef type) {
+		return type instanceof TypeRef.Nullable ? ((TypeRef.Nullable) type).nullableType() : type;
+	}
+	
 	private void processField(Consumer<Member> addMember, FieldDeclaration member, boolean isInterface,
 			boolean isPublic, boolean lombokGetter, boolean lombokSetter) {
 		FieldDeclaration field = member.asFieldDeclaration();
@@ -402,6 +463,22 @@ public class AstGenerator {
 		NodeList<VariableDeclarator> vars = field.getVariables();
 		boolean isStatic = isInterface || field.isStatic();
 		boolean isFinal = isInterface || field.isFinal();
+		if (syntacticTypes != null) {
+			// Each variable might have different array dimensions
+			List<TypeRef> types = new ArrayList<>(vars.size());
+			for (VariableDeclarator var : vars) {
+				syntacticTypes.resolve(var.getType(), field).ifPresent(types::add);
+			}
+			syntacticTypes.count(types.size() == vars.size());
+			if (types.size() == vars.size()) {
+				for (int i = 0; i < vars.size(); i++) {
+					FieldProps props = new FieldProps(vars.get(i).getNameAsString(), types.get(i), getJavadoc(member),
+							nullable, isPublic, isStatic, isFinal, lombokGetter, lombokSetter);
+					processFieldValue(addMember, props);
+				}
+				return;
+			}
+		}
 		if (vars.size() == 1) {
 			FieldProps props = new FieldProps(field.resolve(), getJavadoc(member),
 					nullable, isPublic, isStatic, isFinal, lombokGetter, lombokSetter);
@@ -416,17 +493,25 @@ public class AstGenerator {
 	}
 	
 	private class FieldProps {
-		ResolvedValueDeclaration value;
-		String javadoc;
+		String name;
+		TypeRef type;
+		Javadoc javadoc;
 		boolean nullable;
 		boolean isPublic;
 		boolean isStatic;
 		boolean isFinal;
 		boolean lombokGetter, lombokSetter;
 		
-		FieldProps(ResolvedValueDeclaration value, String javadoc, boolean nullable, boolean isPublic,
+		FieldProps(ResolvedValueDeclaration value, Javadoc javadoc, boolean nullable, boolean isPublic,
+				boolean isStatic, boolean isFinal, boolean lombokGetter, boolean lombokSetter) {
+			this(value.getName(), TypeRef.fromType(value.getType()), javadoc, nullable, isPublic, isStatic, isFinal,
+					lombokGetter, lombokSetter);
+		}
+		
+		FieldProps(String name, TypeRef type, Javadoc javadoc, boolean nullable, boolean isPublic,
 				boolean isStatic, boolean isFinal, boolean lombokGetter, boolean lombokSetter) {
-			this.value = value;
+			this.name = name;
+			this.type = type;
 			this.javadoc = javadoc;
 			this.nullable = nullable;
 			this.isPublic = isPublic;
@@ -438,17 +523,17 @@ public class AstGenerator {
 	}
 	
 	private void processFieldValue(Consumer<Member> addMember, FieldProps props) {
-		TypeRef type = TypeRef.fromType(props.value.getType(), props.nullable);
+		TypeRef type = props.nullable ? TypeRef.nullable(props.type) : props.type;
 		// Add normal field to AST
-		addMember.accept(new Field(props.value.getName(), type, props.javadoc,
+		addMember.accept(new Field(props.name, type, props.javadoc,
 				props.isPublic, props.isStatic, props.isFinal));
 		
 		// Generate public getter/setter pair for field (Lombok)
 		if (props.lombokGetter) {
-			addMember.accept(new Getter(props.value.getName(), type, props.javadoc, true, props.isStatic, false));
+			addMember.accept(new Getter(props.name, type, props.javadoc, true, props.isStatic, false));
 		}
 		if (props.lombokSetter) {
-			addMember.accept(new Setter(props.value.getName(), type, props.javadoc, true, props.isStatic, false));
+			addMember.accept(new Setter(props.name, type, props.javadoc, true, props.isStatic, false));
 		}
 	}
 }
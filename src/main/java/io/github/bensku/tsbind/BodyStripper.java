@@ -0,0 +1,157 @@
+package io.github.bensku.tsbind;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import io.github.bensku.tsbind.JavaLexer.Token;
+
+/**
+ * Removes code that {@link AstGenerator} doesn't need from Java sources.
+ * Contents of method bodies, initializer blocks and field initializers are
+ * replaced with whitespace, which makes them very cheap to parse.
+ * Declarations, their comments and annotations are left untouched.
+ *
+ * Line breaks are preserved, so line numbers in parse errors stay correct.
+ *
+ */
+public class BodyStripper {
+
+	private BodyStripper() {}
+
+	/**
+	 * Strips code from the given source.
+	 * @param code Java source code.
+	 * @return Source with bodies and initializers blanked out.
+	 */
+	public static String strip(CharSequence code) {
+		char[] out = code.toString().toCharArray();
+		JavaLexer lexer = new JavaLexer(code);
+
+		int classDepth = 0; // Class bodies we're in; other bodies are skipped
+		int parens = 0; // Parentheses of annotations, parameter lists, etc.
+		boolean typeHeader = false; // If next { starts a class body
+		boolean afterParams = false; // If previous token closed a parameter list
+		boolean afterAt = false; // If previous token was @
+		boolean annotationHeader = false; // If next { starts an annotation type body
+		Deque<Boolean> annotationBodies = new ArrayDeque<>(); // For each class body we're in
+		while (lexer.nextCode() != Token.EOF) {
+			boolean closesParams = false;
+			if (lexer.is('(')) {
+				parens++;
+			} else if (lexer.is(')')) {
+				parens--;
+				closesParams = parens == 0;
+			} else if (parens > 0) {
+				// Annotation values and enum constant arguments may contain e.g. lambdas
+				if (lexer.is('{')) {
+					lexer.skipBalanced('{', '}');
+				}
+			} else if (lexer.is('{')) {
+				if (typeHeader) {
+					classDepth++;
+					annotationBodies.push(annotationHeader);
+				} else {
+					// Method body, initializer block, etc.
+					int bodyStart = lexer.end();
+					lexer.skipBalanced('{', '}');
+					blank(out, bodyStart, lexer.start());
+				}
+				typeHeader = false;
+			} else if (lexer.is('}')) {
+				classDepth--;
+				annotationBodies.poll();
+				typeHeader = false;
+			} else if (lexer.is(';')) {
+				typeHeader = false;
+			} else if (afterParams && lexer.is("default") && Boolean.TRUE.equals(annotationBodies.peek())) {
+				// Default value of annotation element, e.g. String[] value() default {"a"};
+				// It is part of the signature, so its braces are not a body
+				skipDefaultValue(lexer);
+				typeHeader = false;
+			} else if (lexer.is('=') && classDepth > 0) {
+				stripInitializer(lexer, out);
+				if (lexer.is(';')) {
+					typeHeader = false;
+				}
+			} else if (lexer.is("class") || lexer.is("interface") || lexer.is("enum")) {
+				typeHeader = true;
+				annotationHeader = afterAt && lexer.is("interface");
+			} else if (lexer.is("record")) {
+				// Contextual keyword, could also be e.g. a method name
+				typeHeader = lexer.fork().nextCode() == Token.IDENTIFIER;
+				annotationHeader = false;
+			}
+			afterParams = closesParams;
+			afterAt = lexer.is('@');
+		}
+		return new String(out);
+	}
+
+	private static void stripInitializer(JavaLexer lexer, char[] out) {
+		int start = lexer.end();
+		int depth = 0;
+		while (lexer.nextCode() != Token.EOF) {
+			if (lexer.is('(') || lexer.is('[') || lexer.is('{')) {
+				depth++;
+			} else if (lexer.is(')') || lexer.is(']') || lexer.is('}')) {
+				depth--;
+			} else if (depth == 0 && (lexer.is(';') || (lexer.is(',') && isDeclaratorNext(lexer)))) {
+				break; // End of this initializer
+			}
+		}
+		int end = lexer.token() == Token.EOF ? out.length : lexer.start();
+		blank(out, start, end);
+
+		// Put a placeholder value to keep the declaration valid
+		for (int i = start; i < end; i++) {
+			if (out[i] == ' ') {
+				out[i] = '0';
+				break;
+			}
+		}
+	}
+
+	private static void skipDefaultValue(JavaLexer lexer) {
+		int depth = 0;
+		while (lexer.nextCode() != Token.EOF) {
+			if (lexer.is('(') || lexer.is('{')) {
+				depth++;
+			} else if (lexer.is(')') || lexer.is('}')) {
+				depth--;
+			} else if (depth == 0 && lexer.is(';')) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Checks if tokens after a comma look like another variable declarator
+	 * (as opposed to e.g. type arguments of a generic constructor call).
+	 * Getting this wrong only causes a parse error, which falls back to
+	 * parsing the full source.
+	 * @param lexer Lexer with comma as current token.
+	 * @return Whether a declarator is likely to follow.
+	 */
+	static boolean isDeclaratorNext(JavaLexer lexer) {
+		JavaLexer ahead = lexer.fork();
+		if (ahead.nextCode() != Token.IDENTIFIER) {
+			return false;
+		}
+		ahead.nextCode();
+		while (ahead.is('[')) { // C-style array declarator, e.g. int a[] = ...
+			if (ahead.nextCode() != Token.SYMBOL || !ahead.is(']')) {
+				return false;
+			}
+			ahead.nextCode();
+		}
+		return ahead.is('=') || ahead.is(',') || ahead.is(';');
+	}
+
+	private static void blank(char[] out, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (out[i] != '\n' && out[i] != '\r') {
+				out[i] = ' ';
+			}
+		}
+	}
+}
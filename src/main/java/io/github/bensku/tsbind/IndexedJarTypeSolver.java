@@ -0,0 +1,89 @@
+package io.github.bensku.tsbind;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+
+/**
+ * Solves types from a jar, using its {@link SymbolIndex} to answer lookups
+ * of types that are not in the jar. The jar is opened only when a type
+ * that is in it is actually needed.
+ *
+ * Like other type solvers, this is not thread-safe. The index can still be
+ * shared between instances. Classes loaded from the jar count against budget
+ * of given {@link SolverCacheLimiter}.
+ *
+ */
+public class IndexedJarTypeSolver implements TypeSolver {
+
+	private final SymbolIndex index;
+
+	private TypeSolver parent;
+
+	/**
+	 * Solver that reads the jar, created lazily.
+	 */
+	private JarTypeSolver jarSolver;
+
+	/**
+	 * Names of classes the jar solver has loaded.
+	 */
+	private final Set<String> loaded;
+
+	private final SolverCacheLimiter limiter;
+
+	public IndexedJarTypeSolver(SymbolIndex index, SolverCacheLimiter limiter) {
+		this.index = index;
+		this.loaded = new HashSet<>();
+		this.limiter = limiter;
+	}
+
+	public SymbolIndex index() {
+		return index;
+	}
+
+	@Override
+	public TypeSolver getParent() {
+		return parent;
+	}
+
+	@Override
+	public void setParent(TypeSolver parent) {
+		this.parent = parent;
+	}
+
+	@Override
+	public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+		if (!index.contains(name)) {
+			return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+		}
+		if (jarSolver == null) {
+			try {
+				jarSolver = new JarTypeSolver(index.jar());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			jarSolver.setParent(this); // Supertypes etc. are solved from root
+		}
+		SymbolReference<ResolvedReferenceTypeDeclaration> ref = jarSolver.tryToSolveType(name);
+		if (ref.isSolved() && loaded.add(name)) {
+			limiter.classLoaded(this);
+		}
+		return ref;
+	}
+
+	/**
+	 * Drops all classes loaded from the jar. Types that have already been
+	 * solved stay usable.
+	 */
+	void evict() {
+		jarSolver = null;
+		loaded.clear();
+	}
+}
@@ -0,0 +1,270 @@
+package io.github.bensku.tsbind;
+
+/**
+ * A minimal Java tokenizer. It understands just enough of the language
+ * (comments, literals, identifiers) to find declarations without running
+ * the full parser.
+ *
+ */
+public class JavaLexer {
+
+	public enum Token {
+		/**
+		 * Identifier or keyword.
+		 */
+		IDENTIFIER,
+
+		/**
+		 * Any single non-identifier character, e.g. a brace.
+		 */
+		SYMBOL,
+
+		/**
+		 * String, text block, character or number literal.
+		 */
+		LITERAL,
+
+		/**
+		 * Line or block comment.
+		 */
+		COMMENT,
+
+		/**
+		 * Javadoc comment.
+		 */
+		JAVADOC,
+
+		/**
+		 * End of source code.
+		 */
+		EOF
+	}
+
+	/**
+	 * Source code to tokenize.
+	 */
+	private final CharSequence code;
+
+	/**
+	 * Position where next token will be searched from.
+	 */
+	private int pos;
+
+	/**
+	 * Current token type.
+	 */
+	private Token token;
+
+	/**
+	 * Start (inclusive) and end (exclusive) of current token.
+	 */
+	private int start, end;
+
+	public JavaLexer(CharSequence code) {
+		this.code = code;
+	}
+
+	/**
+	 * Advances to next token, including comments.
+	 * @return Type of the new current token.
+	 */
+	public Token next() {
+		int length = code.length();
+		while (pos < length && Character.isWhitespace(code.charAt(pos))) {
+			pos++;
+		}
+		start = pos;
+		if (pos == length) {
+			end = pos;
+			return token = Token.EOF;
+		}
+
+		char c = code.charAt(pos);
+		if (c == '/' && pos + 1 < length && code.charAt(pos + 1) == '/') {
+			while (pos < length && code.charAt(pos) != '\n') {
+				pos++;
+			}
+			token = Token.COMMENT;
+		} else if (c == '/' && pos + 1 < length && code.charAt(pos + 1) == '*') {
+			// /**/ is an empty block comment, not Javadoc
+			boolean javadoc = pos + 2 < length && code.charAt(pos + 2) == '*'
+					&& !(pos + 3 < length && code.charAt(pos + 3) == '/');
+			pos = indexOf("*/", pos + 2);
+			pos = pos == -1 ? length : pos + 2;
+			token = javadoc ? Token.JAVADOC : Token.COMMENT;
+		} else if (c == '"' && startsWith("\"\"\"", pos)) {
+			pos = skipQuoted("\"\"\"", pos + 3);
+			token = Token.LITERAL;
+		} else if (c == '"' || c == '\'') {
+			pos = skipQuoted(c == '"' ? "\"" : "'", pos + 1);
+			token = Token.LITERAL;
+		} else if (Character.isJavaIdentifierStart(c)) {
+			while (pos < length && Character.isJavaIdentifierPart(code.charAt(pos))) {
+				pos++;
+			}
+			token = Token.IDENTIFIER;
+		} else if (Character.isDigit(c) || (c == '.' && pos + 1 < length && Character.isDigit(code.charAt(pos + 1)))) {
+			pos++;
+			while (pos < length) {
+				char d = code.charAt(pos);
+				if ((d == '+' || d == '-') && isExponent(code.charAt(pos - 1))) {
+					pos++; // Signed exponent, e.g. 1e-5
+				} else if (Character.isJavaIdentifierPart(d) || d == '.') {
+					pos++;
+				} else {
+					break;
+				}
+			}
+			token = Token.LITERAL;
+		} else {
+			pos++;
+			token = Token.SYMBOL;
+		}
+		end = pos;
+		return token;
+	}
+
+	/**
+	 * Advances to next token that is not a comment.
+	 * @return Type of the new current token.
+	 */
+	public Token nextCode() {
+		Token next;
+		do {
+			next = next();
+		} while (next == Token.COMMENT || next == Token.JAVADOC);
+		return next;
+	}
+
+	private static boolean isExponent(char c) {
+		return c == 'e' || c == 'E' || c == 'p' || c == 'P';
+	}
+
+	private boolean startsWith(String str, int from) {
+		if (from + str.length() > code.length()) {
+			return false;
+		}
+		for (int i = 0; i < str.length(); i++) {
+			if (code.charAt(from + i) != str.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int indexOf(String str, int from) {
+		for (int i = from; i <= code.length() - str.length(); i++) {
+			if (startsWith(str, i)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int skipQuoted(String quote, int from) {
+		int length = code.length();
+		int i = from;
+		while (i < length) {
+			char c = code.charAt(i);
+			if (c == '\\') {
+				i += 2; // Skip escaped character
+			} else if (startsWith(quote, i)) {
+				return i + quote.length();
+			} else if (c == '\n' && quote.length() == 1) {
+				return i; // Unterminated literal, don't consume rest of file
+			} else {
+				i++;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Skips tokens until the given closing symbol that balances an opening
+	 * symbol that was the current token. Afterwards, the closing symbol is
+	 * the current token.
+	 * @param open Opening symbol, e.g. '{'.
+	 * @param close Closing symbol, e.g. '}'.
+	 */
+	public void skipBalanced(char open, char close) {
+		int depth = 1;
+		while (depth > 0 && next() != Token.EOF) {
+			if (is(open)) {
+				depth++;
+			} else if (is(close)) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Skips an annotation, including its arguments. The current token must
+	 * be first part of annotation name (i.e. the one after '@'). Afterwards,
+	 * the last token of annotation is the current token.
+	 */
+	public void skipAnnotation() {
+		JavaLexer ahead = fork();
+		while (ahead.nextCode() == Token.SYMBOL && ahead.is('.')) {
+			ahead.nextCode(); // Next part of qualified name
+			nextCode();
+			nextCode();
+		}
+		if (ahead.is('(')) {
+			nextCode();
+			skipBalanced('(', ')');
+		}
+	}
+
+	public Token token() {
+		return token;
+	}
+
+	public int start() {
+		return start;
+	}
+
+	public int end() {
+		return end;
+	}
+
+	/**
+	 * Gets text of current token.
+	 * @return Token text.
+	 */
+	public String text() {
+		return code.subSequence(start, end).toString();
+	}
+
+	/**
+	 * Checks if current token is the given symbol.
+	 * @param symbol Symbol character.
+	 * @return Whether current token matched.
+	 */
+	public boolean is(char symbol) {
+		return token == Token.SYMBOL && code.charAt(start) == symbol;
+	}
+
+	/**
+	 * Checks if current token is the given identifier or keyword.
+	 * @param identifier Identifier.
+	 * @return Whether current token matched.
+	 */
+	public boolean is(String identifier) {
+		return token == Token.IDENTIFIER && end - start == identifier.length()
+				&& startsWith(identifier, start);
+	}
+
+	/**
+	 * Creates a copy of this lexer that continues from the current position.
+	 * Can be used to look ahead.
+	 * @return A new lexer.
+	 */
+	public JavaLexer fork() {
+		JavaLexer copy = new JavaLexer(code);
+		copy.pos = pos;
+		copy.token = token;
+		copy.start = start;
+		copy.end = end;
+		return copy;
+	}
+}
@@ -0,0 +1,391 @@
+package io.github.bensku.tsbind;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.bensku.tsbind.JavaLexer.Token;
+import io.github.bensku.tsbind.ast.Javadoc;
+import io.github.bensku.tsbind.ast.JavadocStore;
+import io.github.bensku.tsbind.ast.Member;
+import io.github.bensku.tsbind.ast.Method;
+import io.github.bensku.tsbind.ast.Parameter;
+import io.github.bensku.tsbind.ast.TypeDefinition;
+import io.github.bensku.tsbind.ast.TypeRef;
+
+/**
+ * Javadoc comments found in Java sources, keyed by the declarations they
+ * document. Sources are only tokenized, not parsed or resolved. This allows
+ * adding documentation to types that were read from class files.
+ *
+ * Methods are matched by name and simple names of their parameter types.
+ * If that fails (e.g. because a type was imported under a different name),
+ * they are matched by name and parameter count, unless there are several
+ * such overloads with different documentation.
+ *
+ * This is thread-safe; sources can be scanned in parallel.
+ *
+ */
+public class JavadocIndex {
+
+	/**
+	 * Comments by exact keys, e.g. {@code a.b.Foo#bar(int,String[])}.
+	 */
+	private final Map<String, Javadoc> docs;
+
+	/**
+	 * Comment of a method overload, with hash of its text. Comparing hashes
+	 * first avoids loading stored text of overloads that differ anyway.
+	 */
+	private static class Overload {
+
+		final Javadoc doc;
+
+		final int hash;
+
+		Overload(Javadoc doc, int hash) {
+			this.doc = doc;
+			this.hash = hash;
+		}
+
+		boolean sameText(Overload other) {
+			return hash == other.hash && doc.text().equals(other.doc.text());
+		}
+	}
+
+	/**
+	 * Method comments by name and parameter count, e.g.
+	 * {@code a.b.Foo#bar/2}. Empty if overloads had different comments.
+	 */
+	private final Map<String, Optional<Overload>> byCount;
+
+	/**
+	 * How many members have received comments.
+	 */
+	private final AtomicInteger applied;
+
+	/**
+	 * Where Javadoc text is stored, or null if it should be kept in memory.
+	 */
+	private final JavadocStore store;
+
+	public JavadocIndex(JavadocStore store) {
+		this.store = store;
+		this.docs = new ConcurrentHashMap<>();
+		this.byCount = new ConcurrentHashMap<>();
+		this.applied = new AtomicInteger();
+	}
+
+	/**
+	 * Type that we're inside of.
+	 */
+	private static class Frame {
+
+		final String name;
+
+		/**
+		 * If we're at enum constants (i.e. before first semicolon of enum).
+		 */
+		boolean constants;
+
+		Frame(String name, boolean constants) {
+			this.name = name;
+			this.constants = constants;
+		}
+	}
+
+	/**
+	 * Collects Javadoc comments from the given source code.
+	 * @param code Java source code.
+	 */
+	public void scan(CharSequence code) {
+		JavaLexer lexer = new JavaLexer(code);
+		Deque<Frame> frames = new ArrayDeque<>();
+		String packageName = "";
+
+		Javadoc doc = null; // Javadoc for next declaration
+		int docHash = 0; // Hash of its text
+		String lastName = null; // Last identifier of declaration header
+		String typeName = null; // Name of type, if header declares one
+		boolean isEnum = false;
+		while (lexer.next() != Token.EOF) {
+			Frame frame = frames.peek();
+			if (lexer.token() == Token.JAVADOC) {
+				String text = lexer.text();
+				if (text.endsWith("*/")) {
+					String content = text.substring(3, text.length() - 2);
+					doc = store(content);
+					docHash = content.hashCode();
+				} else {
+					doc = null;
+				}
+			} else if (lexer.token() == Token.COMMENT) {
+				if (lastName == null && typeName == null) {
+					doc = null; // Parser would consider this comment to be the one of next declaration
+				}
+			} else if (lexer.is('@')) {
+				lexer.nextCode();
+				if (lexer.is("interface")) { // Annotation type
+					lexer.nextCode();
+					typeName = lexer.text();
+				} else {
+					lexer.skipAnnotation();
+				}
+			} else if (frame != null && frame.constants) {
+				if (lexer.token() == Token.IDENTIFIER) {
+					put(frame.name + "#" + lexer.text(), doc);
+					doc = null;
+				} else if (lexer.is('(')) {
+					lexer.skipBalanced('(', ')');
+				} else if (lexer.is('{')) { // Constant with class body
+					lexer.skipBalanced('{', '}');
+				} else if (lexer.is(';')) {
+					frame.constants = false;
+				} else if (lexer.is('}')) {
+					frames.pop();
+				}
+			} else if (frame == null && (lexer.is("package") || lexer.is("import"))) {
+				boolean isPackage = lexer.is("package");
+				StringBuilder name = new StringBuilder();
+				while (lexer.nextCode() != Token.EOF && !lexer.is(';')) {
+					name.append(lexer.text());
+				}
+				if (isPackage) {
+					packageName = name.toString();
+				}
+				doc = null;
+			} else if (lexer.token() == Token.IDENTIFIER) {
+				if (typeName == null && (lexer.is("class") || lexer.is("interface") || lexer.is("enum")
+						|| (lexer.is("record") && lexer.fork().nextCode() == Token.IDENTIFIER))) {
+					isEnum = lexer.is("enum");
+					lexer.nextCode();
+					typeName = lexer.text();
+				} else {
+					lastName = lexer.text();
+				}
+			} else if (lexer.is('<')) {
+				lexer.skipBalanced('<', '>'); // Type parameters or arguments
+			} else if (lexer.is('(')) {
+				if (typeName != null) {
+					lexer.skipBalanced('(', ')'); // Record components
+				} else if (frame != null && lastName != null) {
+					List<String> params = readParams(lexer);
+					String key = frame.name + "#" + lastName;
+					put(key + "(" + String.join(",", params) + ")", doc);
+					if (doc != null) {
+						byCount.merge(key + "/" + params.size(), Optional.of(new Overload(doc, docHash)),
+								(a, b) -> a.isPresent() && a.get().sameText(b.get()) ? a : Optional.empty());
+					}
+					skipMethodRest(lexer);
+					doc = null;
+					lastName = null;
+				}
+			} else if (lexer.is('{')) {
+				if (typeName != null) {
+					String name = frame != null ? frame.name + "." + typeName
+							: packageName.isEmpty() ? typeName : packageName + "." + typeName;
+					put(name, doc);
+					frames.push(new Frame(name, isEnum));
+				} else {
+					lexer.skipBalanced('{', '}'); // Initializer block
+				}
+				doc = null;
+				lastName = null;
+				typeName = null;
+			} else if (lexer.is('}')) {
+				if (!frames.isEmpty()) {
+					frames.pop();
+				}
+				doc = null;
+				lastName = null;
+				typeName = null;
+			} else if (typeName != null) {
+				continue; // e.g. commas between implemented interfaces
+			} else if (lexer.is('=')) {
+				if (frame != null && lastName != null) {
+					put(frame.name + "#" + lastName, doc);
+				}
+				skipInitializer(lexer);
+				if (lexer.is(';')) {
+					doc = null; // Comment applies to all variables of declaration
+				}
+				lastName = null;
+			} else if (lexer.is(',') || lexer.is(';')) {
+				if (frame != null && lastName != null) {
+					put(frame.name + "#" + lastName, doc);
+				}
+				if (lexer.is(';')) {
+					doc = null;
+				}
+				lastName = null;
+			}
+		}
+	}
+
+	private Javadoc store(String text) {
+		return store != null ? store.put(text) : Javadoc.of(text);
+	}
+
+	private void put(String key, Javadoc doc) {
+		if (doc != null) {
+			docs.put(key, doc);
+		}
+	}
+
+	/**
+	 * Reads parameter types of a method.
+	 * @param lexer Lexer with opening parenthesis as current token.
+	 * Afterwards, closing parenthesis is the current token.
+	 * @return Parameter keys.
+	 */
+	private static List<String> readParams(JavaLexer lexer) {
+		List<String> params = new ArrayList<>();
+		List<String> names = new ArrayList<>(); // Type name parts and parameter name
+		int dimensions = 0;
+		while (lexer.nextCode() != Token.EOF) {
+			if (lexer.is(')') || lexer.is(',')) {
+				// Last name is that of parameter, ignore receiver parameter
+				if (names.size() > 1 && !names.get(names.size() - 1).equals("this")) {
+					params.add(paramKey(names.get(names.size() - 2), dimensions));
+				}
+				names.clear();
+				dimensions = 0;
+				if (lexer.is(')')) {
+					break;
+				}
+			} else if (lexer.is('@')) {
+				lexer.nextCode();
+				lexer.skipAnnotation();
+			} else if (lexer.is('<')) {
+				lexer.skipBalanced('<', '>');
+			} else if (lexer.is('[')) {
+				dimensions++;
+			} else if (lexer.is('.') && isVarargs(lexer)) {
+				lexer.nextCode();
+				lexer.nextCode();
+				dimensions++;
+			} else if (lexer.token() == Token.IDENTIFIER && !lexer.is("final")) {
+				names.add(lexer.text());
+			}
+		}
+		return params;
+	}
+
+	private static boolean isVarargs(JavaLexer lexer) {
+		// Current token is a dot; qualified names don't have several in a row
+		JavaLexer ahead = lexer.fork();
+		return ahead.nextCode() == Token.SYMBOL && ahead.is('.');
+	}
+
+	private static void skipMethodRest(JavaLexer lexer) {
+		// Skip throws clause and body, or default value of annotation element
+		while (lexer.nextCode() != Token.EOF && !lexer.is(';')) {
+			if (lexer.is('{')) {
+				lexer.skipBalanced('{', '}');
+				break;
+			}
+		}
+	}
+
+	private static void skipInitializer(JavaLexer lexer) {
+		int depth = 0;
+		while (lexer.nextCode() != Token.EOF) {
+			if (lexer.is('(') || lexer.is('[') || lexer.is('{')) {
+				depth++;
+			} else if (lexer.is(')') || lexer.is(']') || lexer.is('}')) {
+				depth--;
+			} else if (depth == 0 && (lexer.is(';') || (lexer.is(',') && BodyStripper.isDeclaratorNext(lexer)))) {
+				break;
+			}
+		}
+	}
+
+	private static String paramKey(String typeName, int dimensions) {
+		// Wrapper types are primitives in our AST
+		switch (typeName) {
+		case "Boolean":
+			typeName = "boolean";
+			break;
+		case "Byte":
+			typeName = "byte";
+			break;
+		case "Short":
+			typeName = "short";
+			break;
+		case "Character":
+			typeName = "char";
+			break;
+		case "Integer":
+			typeName = "int";
+			break;
+		case "Long":
+			typeName = "long";
+			break;
+		case "Float":
+			typeName = "float";
+			break;
+		case "Double":
+			typeName = "double";
+			break;
+		}
+		return typeName + "[]".repeat(dimensions);
+	}
+
+	private static String paramKey(TypeRef type) {
+		return type.baseType().simpleName() + "[]".repeat(type.arrayDimensions());
+	}
+
+	/**
+	 * Adds comments to a type and its members that don't have them yet.
+	 * @param type Type definition.
+	 * @return Type with comments added.
+	 */
+	public TypeDefinition apply(TypeDefinition type) {
+		String typeName = type.name();
+		List<Member> members = new ArrayList<>();
+		boolean changed = false;
+		for (Member member : type.members()) {
+			Member result;
+			if (member instanceof TypeDefinition) {
+				result = apply((TypeDefinition) member);
+			} else if (member instanceof Method) {
+				Method method = (Method) member;
+				String key = typeName + "#" + method.originalName();
+				List<String> params = new ArrayList<>();
+				for (Parameter param : method.params) {
+					params.add(paramKey(param.type));
+				}
+				Javadoc doc = docs.get(key + "(" + String.join(",", params) + ")");
+				if (doc == null) {
+					doc = byCount.getOrDefault(key + "/" + params.size(), Optional.empty()).map(overload -> overload.doc).orElse(null);
+				}
+				result = withDoc(method, doc);
+			} else {
+				result = withDoc(member, docs.get(typeName + "#" + member.name()));
+			}
+			changed |= result != member;
+			members.add(result);
+		}
+		// Types are immutable, so copy only those that received comments
+		TypeDefinition result = withDoc(type, docs.get(typeName));
+		return changed ? result.toBuilder().members(members).build() : result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Member> T withDoc(T member, Javadoc doc) {
+		if (doc != null && member.javadoc == null) {
+			applied.incrementAndGet();
+			return (T) member.withJavadoc(doc); // Subclasses return their own type
+		}
+		return member;
+	}
+
+	public int applied() {
+		return applied.get();
+	}
+}
@@ -1,11 +1,16 @@
 package io.github.bensku.tsbind;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.stream.Stream;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import io.github.bensku.tsbind.ast.Javadoc;
 import io.github.bensku.tsbind.ast.TypeDefinition;
 
 /**
@@ -14,7 +19,19 @@ import io.github.bensku.tsbind.ast.TypeDefinition;
  */
 public class JsonEmitter implements AstConsumer<String> {
 
-	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting()
+			.registerTypeHierarchyAdapter(Javadoc.class, new TypeAdapter<Javadoc>() {
+
+				@Override
+				public void write(JsonWriter out, Javadoc value) throws IOException {
+					out.value(value.text());
+				}
+
+				@Override
+				public Javadoc read(JsonReader in) throws IOException {
+					return Javadoc.of(in.nextString());
+				}
+			}.nullSafe()).create();
 	
 	@Override
 	public Stream<Result<String>> consume(Map<String, TypeDefinition> types) {
@@ -0,0 +1,60 @@
+package io.github.bensku.tsbind;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Names of all methods in type hierarchies, keyed by qualified name of the
+ * type at hierarchy root. Many types extend the same non-public base types,
+ * and walking their hierarchies with symbol solver is expensive.
+ *
+ * This is thread-safe, and can be shared between {@link AstGenerator}s.
+ *
+ */
+public class MethodNameCache {
+
+	private final Map<String, Set<String>> names;
+
+	/**
+	 * Cache statistics.
+	 */
+	private final AtomicInteger hits, misses;
+
+	public MethodNameCache() {
+		this.names = new ConcurrentHashMap<>();
+		this.hits = new AtomicInteger();
+		this.misses = new AtomicInteger();
+	}
+
+	/**
+	 * Gets method names of a type hierarchy, computing them if needed.
+	 * @param typeName Qualified name of type.
+	 * @param compute Computes names if they are not cached. This may
+	 * recursively call this method for supertypes.
+	 * @return Unmodifiable set of method names.
+	 */
+	public Set<String> get(String typeName, Supplier<Set<String>> compute) {
+		Set<String> cached = names.get(typeName);
+		if (cached != null) {
+			hits.incrementAndGet();
+			return cached;
+		}
+		misses.incrementAndGet();
+		// Not computeIfAbsent, because computation recurses into this map
+		// Another thread might compute same names at same time, which is harmless
+		Set<String> computed = Set.copyOf(compute.get());
+		cached = names.putIfAbsent(typeName, computed);
+		return cached != null ? cached : computed;
+	}
+
+	public int hits() {
+		return hits.get();
+	}
+
+	public int misses() {
+		return misses.get();
+	}
+}
@@ -0,0 +1,110 @@
+package io.github.bensku.tsbind;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+
+/**
+ * Solves types by sending lookups only to solvers of jars that contain the
+ * package of looked up type. Unlike with a combined type solver, the cost
+ * of a lookup does not grow with number of symbol jars. Names that could
+ * not be solved are remembered, because same names (e.g. type variables)
+ * are looked up over and over again.
+ *
+ * This is not thread-safe, but the {@link UnsolvedSymbolCache} can be
+ * shared between solvers.
+ *
+ */
+public class PackageRoutingTypeSolver implements TypeSolver {
+
+	/**
+	 * Solver for JDK types.
+	 */
+	private final TypeSolver jreSolver;
+
+	/**
+	 * Jar solvers by packages they have classes in. Split packages have
+	 * several solvers, in order they were given.
+	 */
+	private final Map<String, List<TypeSolver>> packages;
+
+	/**
+	 * Names that no solver knows.
+	 */
+	private final UnsolvedSymbolCache unsolved;
+
+	private TypeSolver parent;
+
+	/**
+	 * Creates a new routing solver.
+	 * @param jreSolver Solver for types in {@code java} and {@code javax}
+	 * packages. It is tried before jar solvers for names in those packages.
+	 * @param jarSolvers Solvers for symbol jars.
+	 * @param unsolved Cache of names that could not be solved.
+	 */
+	public PackageRoutingTypeSolver(TypeSolver jreSolver, List<IndexedJarTypeSolver> jarSolvers,
+			UnsolvedSymbolCache unsolved) {
+		this.jreSolver = jreSolver;
+		this.packages = new HashMap<>();
+		this.unsolved = unsolved;
+		jreSolver.setParent(this);
+		for (IndexedJarTypeSolver solver : jarSolvers) {
+			solver.setParent(this);
+			for (String name : solver.index().packages()) {
+				packages.computeIfAbsent(name, k -> new ArrayList<>()).add(solver);
+			}
+		}
+	}
+
+	@Override
+	public TypeSolver getParent() {
+		return parent;
+	}
+
+	@Override
+	public void setParent(TypeSolver parent) {
+		this.parent = parent;
+	}
+
+	@Override
+	public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+		// Symbol solver calls this constantly, even when it goes exponential
+		ParseWatchdog.check();
+		if (unsolved.contains(name)) {
+			return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+		}
+		// Same check that reflection solver does for JRE-only lookups
+		if (name.startsWith("java.") || name.startsWith("javax.")) {
+			SymbolReference<ResolvedReferenceTypeDeclaration> ref = jreSolver.tryToSolveType(name);
+			if (ref.isSolved()) {
+				return ref;
+			}
+		}
+		for (TypeSolver solver : route(name)) {
+			SymbolReference<ResolvedReferenceTypeDeclaration> ref = solver.tryToSolveType(name);
+			if (ref.isSolved()) {
+				return ref;
+			}
+		}
+		unsolved.add(name);
+		return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+	}
+
+	private List<TypeSolver> route(String name) {
+		// Canonical names of nested types have outer types between package and simple name
+		int dot = name.lastIndexOf('.');
+		while (dot != -1) {
+			List<TypeSolver> solvers = packages.get(name.substring(0, dot));
+			if (solvers != null) {
+				return solvers;
+			}
+			dot = name.lastIndexOf('.', dot - 1);
+		}
+		return packages.getOrDefault("", List.of());
+	}
+}
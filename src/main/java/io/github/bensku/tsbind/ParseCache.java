@@ -0,0 +1,185 @@
+package io.github.bensku.tsbind;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import io.github.bensku.tsbind.ast.AstSerializer;
+import io.github.bensku.tsbind.ast.JavadocStore;
+import io.github.bensku.tsbind.ast.TypeDefinition;
+
+/**
+ * On-disk cache of {@link AstGenerator#parseType(SourceUnit) parse results}.
+ * Entries are keyed by hash of the source code and everything else that
+ * can affect the result, i.e. symbol jars, blacklist, the JDK that JDK types
+ * are resolved from and whether
+ * {@link SyntacticTypeResolver syntactic type resolution} is used.
+ *
+ */
+public class ParseCache {
+
+	/**
+	 * Version of cache entry format. Increment this when
+	 * {@link AstSerializer} or {@link AstGenerator} output changes.
+	 */
+	private static final int FORMAT_VERSION = 2;
+
+	/**
+	 * Directory where cache entries are stored.
+	 */
+	private final Path dir;
+
+	/**
+	 * Hash of symbol jars, blacklist, JDK and type resolution mode.
+	 */
+	private final byte[] fingerprint;
+
+	/**
+	 * Cache statistics.
+	 */
+	private final AtomicInteger hits, misses;
+
+	/**
+	 * Where Javadoc of cached types is stored once they're read.
+	 */
+	private final JavadocStore javadocs;
+
+	/**
+	 * Creates a parse cache.
+	 * @param dir Cache directory.
+	 * @param symbols Symbol jars.
+	 * @param blacklist Type blacklist.
+	 * @param sourceTypes Names of types in sources, if syntactic type
+	 * resolution is used; otherwise, null. Which types are known affects
+	 * how member types are resolved.
+	 * @param javadocs Where Javadoc of cached types is stored.
+	 * @throws IOException When symbol jars cannot be read.
+	 */
+	public ParseCache(Path dir, List<Path> symbols, List<String> blacklist, Set<String> sourceTypes,
+			JavadocStore javadocs) throws IOException {
+		this.dir = dir;
+		this.javadocs = javadocs;
+		this.fingerprint = fingerprint(symbols, blacklist, sourceTypes);
+		this.hits = new AtomicInteger();
+		this.misses = new AtomicInteger();
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertionError(e); // Every JVM must support SHA-256
+		}
+	}
+
+	private static byte[] fingerprint(List<Path> symbols, List<String> blacklist, Set<String> sourceTypes)
+			throws IOException {
+		MessageDigest digest = newDigest();
+		digest.update((byte) FORMAT_VERSION);
+		// JDK types are resolved by reflection from the JDK we run on
+		digest.update(Runtime.version().toString().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(System.getProperty("java.home").getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		byte[] buf = new byte[8192];
+		for (Path jar : symbols) {
+			try (InputStream in = Files.newInputStream(jar)) {
+				int read;
+				while ((read = in.read(buf)) != -1) {
+					digest.update(buf, 0, read);
+				}
+			}
+			digest.update((byte) 0); // Separate jars from each other
+		}
+		for (String fragment : blacklist) {
+			digest.update(fragment.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+		digest.update((byte) (sourceTypes != null ? 1 : 0)); // Type resolution mode
+		if (sourceTypes != null) {
+			for (String type : new TreeSet<>(sourceTypes)) { // Hash must not depend on discovery order
+				digest.update(type.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+		}
+		return digest.digest();
+	}
+
+	private Path entryPath(SourceUnit source) {
+		MessageDigest digest = newDigest();
+		digest.update(fingerprint);
+		digest.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(source.code)));
+		StringBuilder hash = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hash.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return dir.resolve(hash.substring(0, 2)).resolve(hash.toString());
+	}
+
+	/**
+	 * Gets parse result of given source from cache. If it is not available,
+	 * source is parsed and the result is added to cache.
+	 * @param source Source unit.
+	 * @param parser Parser to call on cache miss.
+	 * @return Parsed type, or empty optional if the parser did not produce
+	 * a type.
+	 */
+	public Optional<TypeDefinition> parseType(SourceUnit source,
+			Function<SourceUnit, Optional<TypeDefinition>> parser) {
+		Path entry = entryPath(source);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+			Optional<TypeDefinition> type = in.readBoolean() ? Optional.of(AstSerializer.readType(in, javadocs)) : Optional.empty();
+			hits.incrementAndGet();
+			return type;
+		} catch (NoSuchFileException e) {
+			// Not in cache, fall through to parsing
+		} catch (IOException | RuntimeException e) {
+			System.err.println("ignoring corrupted cache entry " + entry + " for " + source.name + ": " + e);
+		}
+		misses.incrementAndGet();
+
+		// Also cache empty results, they can be quite expensive to produce
+		Optional<TypeDefinition> type = parser.apply(source);
+		try {
+			Files.createDirectories(entry.getParent());
+			// Write to temporary file first so that other runs never see partial entries
+			Path temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeBoolean(type.isPresent());
+				if (type.isPresent()) {
+					// Entries outlive the Javadoc store, so they contain full Javadoc text
+					AstSerializer.writeType(out, type.get());
+				}
+			}
+			Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.err.println("failed to write cache entry for " + source.name + ": " + e);
+		}
+		return type;
+	}
+
+	public int hits() {
+		return hits.get();
+	}
+
+	public int misses() {
+		return misses.get();
+	}
+}
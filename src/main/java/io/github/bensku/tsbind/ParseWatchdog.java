@@ -0,0 +1,206 @@
+package io.github.bensku.tsbind;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.github.bensku.tsbind.ast.TypeDefinition;
+
+/**
+ * Limits how long parsing and resolving a single file may take. Files that
+ * exceed their time budget are abandoned, and can be recorded in a
+ * quarantine file. On later runs, quarantined files are either skipped or
+ * given a larger budget.
+ *
+ * Java threads can't be safely stopped, so work is abandoned cooperatively.
+ * {@link #check()} is called often enough (e.g. on every type lookup of
+ * symbol solver) that even pathological files hit it regularly.
+ *
+ * This is thread-safe, and can be shared between workers.
+ *
+ */
+public class ParseWatchdog {
+
+	/**
+	 * Thrown from {@link #check()} when time budget of current file has
+	 * been exceeded.
+	 */
+	public static class TimeoutException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		public TimeoutException(String msg) {
+			super(msg);
+		}
+	}
+
+	private static class Deadline {
+
+		/**
+		 * When work on current file must end, in {@link System#nanoTime()}.
+		 */
+		long nanos = Long.MAX_VALUE;
+	}
+
+	/**
+	 * Deadlines of files that workers are currently processing.
+	 */
+	private static final ThreadLocal<Deadline> deadline = ThreadLocal.withInitial(Deadline::new);
+
+	/**
+	 * Checks if current file has exceeded its time budget.
+	 * @throws TimeoutException When the budget has been exceeded.
+	 */
+	public static void check() {
+		long nanos = deadline.get().nanos;
+		if (nanos != Long.MAX_VALUE && System.nanoTime() - nanos > 0) {
+			throw new TimeoutException("time budget exceeded");
+		}
+	}
+
+	/**
+	 * Time budget for a file in milliseconds, or 0 for no limit.
+	 */
+	private final long budget;
+
+	/**
+	 * Time budget for quarantined files, or 0 if they should be skipped.
+	 */
+	private final long quarantineBudget;
+
+	/**
+	 * Quarantine file, or null.
+	 */
+	private final Path quarantineFile;
+
+	/**
+	 * Quarantined type names and how long they took before they were
+	 * abandoned.
+	 */
+	private final Map<String, Long> quarantined;
+
+	/**
+	 * Statistics.
+	 */
+	private final AtomicInteger abandoned, skipped;
+
+	/**
+	 * Creates a new watchdog.
+	 * @param budget Time budget for a file in milliseconds, or 0 for no limit.
+	 * @param quarantineFile File to read and record quarantined files in, or
+	 * null to not keep a quarantine.
+	 * @param quarantineBudget Time budget for quarantined files, or 0 to skip them.
+	 * @throws IOException When the quarantine file exists but cannot be read.
+	 */
+	public ParseWatchdog(long budget, Path quarantineFile, long quarantineBudget) throws IOException {
+		this.budget = budget;
+		this.quarantineBudget = quarantineBudget;
+		this.quarantineFile = quarantineFile;
+		this.quarantined = new ConcurrentHashMap<>();
+		this.abandoned = new AtomicInteger();
+		this.skipped = new AtomicInteger();
+		if (quarantineFile != null) {
+			try {
+				for (String line : Files.readAllLines(quarantineFile)) {
+					if (!line.isBlank()) {
+						String[] parts = line.split(" ");
+						quarantined.put(parts[0], parts.length > 1 ? Long.parseLong(parts[1]) : 0);
+					}
+				}
+			} catch (NoSuchFileException e) {
+				// Nothing quarantined yet
+			}
+		}
+	}
+
+	/**
+	 * Checks if a file should not be processed at all, because it is
+	 * quarantined.
+	 * @param typeName Name of type in the file.
+	 * @return Whether the file should be skipped.
+	 */
+	public boolean isSkipped(String typeName) {
+		if (quarantineBudget == 0 && quarantined.containsKey(typeName)) {
+			skipped.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Records that a file was processed without being abandoned, e.g.
+	 * because its result came from a cache. It is removed from quarantine.
+	 * @param typeName Name of type in the file.
+	 */
+	public void succeeded(String typeName) {
+		quarantined.remove(typeName);
+	}
+
+	/**
+	 * Parses a file within its time budget.
+	 * @param typeName Name of type in the file.
+	 * @param parser Function that parses the file.
+	 * @return Parse result.
+	 * @throws TimeoutException When the file was abandoned.
+	 */
+	public Optional<TypeDefinition> parse(String typeName, Supplier<Optional<TypeDefinition>> parser) {
+		long fileBudget = quarantined.containsKey(typeName) ? quarantineBudget : budget;
+		if (fileBudget == 0) {
+			return parser.get();
+		}
+		long start = System.nanoTime();
+		Deadline current = deadline.get();
+		current.nanos = start + TimeUnit.MILLISECONDS.toNanos(fileBudget);
+		try {
+			Optional<TypeDefinition> result = parser.get();
+			quarantined.remove(typeName); // Not pathological after all
+			return result;
+		} catch (TimeoutException e) {
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			System.err.println("abandoned " + typeName + " after " + elapsed + " ms (budget " + fileBudget + " ms)");
+			abandoned.incrementAndGet();
+			quarantined.put(typeName, elapsed);
+			throw e;
+		} finally {
+			current.nanos = Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * Writes the quarantine file, if there is one.
+	 * @throws IOException When writing fails.
+	 */
+	public void saveQuarantine() throws IOException {
+		if (quarantineFile == null) {
+			return;
+		}
+		Path dir = quarantineFile.toAbsolutePath().getParent();
+		Files.createDirectories(dir);
+		// Write to temporary file first so that other runs never see partial quarantines
+		Path temp = Files.createTempFile(dir, quarantineFile.getFileName().toString(), ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+			for (Map.Entry<String, Long> entry : new TreeMap<>(quarantined).entrySet()) {
+				writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+			}
+		}
+		Files.move(temp, quarantineFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	public int abandoned() {
+		return abandoned.get();
+	}
+
+	public int skipped() {
+		return skipped.get();
+	}
+}
@@ -0,0 +1,81 @@
+package io.github.bensku.tsbind;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import io.github.bensku.tsbind.JavaLexer.Token;
+
+/**
+ * Cheaply checks if a source unit might contain a public type before it is
+ * fully parsed. {@link AstGenerator#parseType(SourceUnit)} ignores all types
+ * that are not public, so parsing such units would be wasted effort.
+ *
+ * Only tokens up to the first top-level type declaration are read.
+ *
+ */
+public class PublicTypeFilter implements Predicate<SourceUnit> {
+
+	/**
+	 * Counts of source units checked and rejected.
+	 */
+	private final AtomicInteger checked, rejected;
+
+	public PublicTypeFilter() {
+		this.checked = new AtomicInteger();
+		this.rejected = new AtomicInteger();
+	}
+
+	@Override
+	public boolean test(SourceUnit source) {
+		checked.incrementAndGet();
+		if (mightBePublic(source.code)) {
+			return true;
+		} else {
+			rejected.incrementAndGet();
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if the first top-level type in given source code is public.
+	 * @param code Java source code.
+	 * @return False if the type is definitely not public, true if it is or
+	 * we can't tell.
+	 */
+	public static boolean mightBePublic(CharSequence code) {
+		JavaLexer lexer = new JavaLexer(code);
+		boolean isPublic = false;
+		while (lexer.nextCode() != Token.EOF) {
+			if (lexer.is("package") || lexer.is("import")) {
+				// Skip to end of statement; modifiers are never before these
+				while (lexer.nextCode() != Token.EOF && !lexer.is(';')) {}
+			} else if (lexer.is('@')) {
+				lexer.nextCode();
+				if (lexer.is("interface")) {
+					return isPublic; // Annotation type
+				}
+				lexer.skipAnnotation();
+			} else if (lexer.is("public")) {
+				isPublic = true;
+			} else if (lexer.is("class") || lexer.is("interface") || lexer.is("enum")) {
+				return isPublic;
+			} else if (lexer.is("record") && lexer.fork().nextCode() == Token.IDENTIFIER) {
+				return isPublic;
+			} else if (lexer.is(';')) {
+				isPublic = false; // Stray semicolon, modifiers can't be before it
+			} else if (lexer.is('{')) {
+				return true; // Probably a module declaration; let parser decide
+			}
+			// Other modifiers (final, abstract, etc.) don't matter
+		}
+		return true; // No type found, let parser decide what to do with it
+	}
+
+	public int checked() {
+		return checked.get();
+	}
+
+	public int rejected() {
+		return rejected.get();
+	}
+}
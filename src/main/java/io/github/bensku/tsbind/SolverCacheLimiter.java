@@ -0,0 +1,147 @@
+package io.github.bensku.tsbind;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.javaparser.symbolsolver.javaparsersymbolsolver.JavaParserFacade;
+
+/**
+ * Keeps caches of symbol solver within a budget. Without this, they only
+ * grow over a run, which is a problem with very large inputs.
+ *
+ * Classes loaded by {@link IndexedJarTypeSolver}s are counted against the
+ * budget. When it is exceeded, solvers of least recently used jars drop
+ * their loaded classes. Additionally, {@link JavaParserFacade}s (which cache
+ * resolution results of already processed files) are cleared once all
+ * workers have started a new package batch.
+ *
+ * Each worker needs its own limiter, because jar solvers are not thread-safe.
+ * Limiters of all workers share a {@link Group}.
+ *
+ */
+public class SolverCacheLimiter {
+	
+	/**
+	 * Coordinates clearing of facades between workers. JavaParser keeps them
+	 * in one static map, and there is no way to drop facade of only one worker.
+	 *
+	 */
+	public static class Group {
+		
+		/**
+		 * All limiters in this group.
+		 */
+		private final Set<SolverCacheLimiter> members = new HashSet<>();
+		
+		/**
+		 * Limiters that have started a new batch since facades were last cleared.
+		 */
+		private final Set<SolverCacheLimiter> moved = new HashSet<>();
+		
+		private synchronized void join(SolverCacheLimiter limiter) {
+			members.add(limiter);
+		}
+		
+		private synchronized void batchChanged(SolverCacheLimiter limiter) {
+			moved.add(limiter);
+			if (moved.size() == members.size()) {
+				// Facades of other workers are still needed for their current batches
+				// Clearing them on every batch change would make them almost useless
+				synchronized (JavaParserFacade.class) { // JavaParserFacade.get() locks this, clearInstances() doesn't
+					JavaParserFacade.clearInstances();
+				}
+				moved.clear();
+			}
+		}
+	}
+
+	/**
+	 * Maximum number of loaded classes, or 0 for no limit.
+	 */
+	private final int budget;
+
+	/**
+	 * Loaded classes by jar solvers, from least to most recently used.
+	 */
+	private final Map<IndexedJarTypeSolver, Integer> loaded;
+
+	/**
+	 * Total number of loaded classes.
+	 */
+	private int size;
+
+	/**
+	 * Statistics.
+	 */
+	private int peakSize, evictions;
+
+	/**
+	 * Package (or directory) of previously processed file.
+	 */
+	private String batch;
+	
+	/**
+	 * Group that clears facades.
+	 */
+	private final Group group;
+
+	public SolverCacheLimiter(int budget, Group group) {
+		this.budget = budget;
+		this.loaded = new LinkedHashMap<>(16, 0.75f, true);
+		this.group = group;
+		group.join(this);
+	}
+
+	/**
+	 * Called when a jar solver has loaded a new class.
+	 * @param solver Jar solver.
+	 */
+	void classLoaded(IndexedJarTypeSolver solver) {
+		loaded.merge(solver, 1, Integer::sum);
+		size++;
+		peakSize = Math.max(size, peakSize);
+		if (budget > 0 && size > budget) {
+			Iterator<Map.Entry<IndexedJarTypeSolver, Integer>> it = loaded.entrySet().iterator();
+			while (size > budget && it.hasNext()) {
+				Map.Entry<IndexedJarTypeSolver, Integer> entry = it.next();
+				if (entry.getKey() != solver) { // Currently used solver is never evicted
+					entry.getKey().evict();
+					size -= entry.getValue();
+					evictions++;
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Called before a file is processed.
+	 * @param batch Package or directory of the file. Files of same batch
+	 * should be processed one after another.
+	 */
+	public void startFile(String batch) {
+		if (budget > 0 && this.batch != null && !batch.equals(this.batch)) {
+			group.batchChanged(this);
+		}
+		this.batch = batch;
+	}
+
+	/**
+	 * Gets number of classes currently loaded by jar solvers.
+	 * @return Cache size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int peakSize() {
+		return peakSize;
+	}
+
+	public int evictions() {
+		return evictions;
+	}
+}
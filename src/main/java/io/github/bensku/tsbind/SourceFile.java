@@ -0,0 +1,41 @@
+package io.github.bensku.tsbind;
+
+import java.io.IOException;
+
+/**
+ * A source file that has been found, but not necessarily loaded yet.
+ * It might be in a directory or inside an archive.
+ *
+ */
+public interface SourceFile {
+
+	/**
+	 * Gets name of the file for messages, e.g. its path.
+	 * @return File name.
+	 */
+	String name();
+
+	/**
+	 * Gets name of the top-level type that this file should contain,
+	 * based on the file path, e.g. {@code java.lang.String}.
+	 * @return Canonical type name.
+	 */
+	String typeName();
+
+	/**
+	 * Gets package of the file, based on the file path.
+	 * @return Package name.
+	 */
+	default String packageName() {
+		String type = typeName();
+		int dot = type.lastIndexOf('.');
+		return dot == -1 ? "" : type.substring(0, dot);
+	}
+
+	/**
+	 * Loads contents of the file. This may be called from any thread.
+	 * @return Source unit.
+	 * @throws IOException When the file cannot be read.
+	 */
+	SourceUnit load() throws IOException;
+}
@@ -0,0 +1,159 @@
+package io.github.bensku.tsbind;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads source files on I/O threads ahead of the workers that process
+ * them. Files are requested by their index in the input list; when one
+ * is requested, loading of files up to a fixed window after it is started.
+ * As long as workers take files roughly in order, they rarely need to wait.
+ *
+ * Files on the default file system are memory-mapped. Others are read
+ * fully. In both cases, bytes are decoded directly to a {@link CharBuffer}
+ * without creating a string.
+ *
+ */
+public class SourcePrefetcher {
+
+	/**
+	 * Loads a source file from a path.
+	 * @param path Path to the file.
+	 * @return Source unit.
+	 * @throws IOException When the file cannot be read, or it is not valid
+	 * UTF-8.
+	 */
+	public static SourceUnit load(Path path) throws IOException {
+		ByteBuffer bytes;
+		if (path.getFileSystem() == FileSystems.getDefault()) {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				// Mapping stays valid after channel is closed
+				bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+		} else {
+			bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+		}
+		return decode(path.toString(), bytes);
+	}
+
+	/**
+	 * Decodes UTF-8 source code.
+	 * @param name Name of source unit.
+	 * @param bytes Contents of source file.
+	 * @return Source unit.
+	 * @throws IOException When the bytes are not valid UTF-8.
+	 */
+	public static SourceUnit decode(String name, ByteBuffer bytes) throws IOException {
+		// Like Files.readString(), fail on malformed input instead of replacing it
+		CharBuffer code = StandardCharsets.UTF_8.newDecoder().decode(bytes);
+		return new SourceUnit(name, code);
+	}
+
+	/**
+	 * Files to load.
+	 */
+	private final List<SourceFile> files;
+
+	/**
+	 * Pending and completed loads; cleared once a file has been taken.
+	 */
+	private final CompletableFuture<SourceUnit>[] loads;
+
+	/**
+	 * Executor for I/O.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * How many files are loaded ahead of the last requested one.
+	 */
+	private final int window;
+
+	/**
+	 * Index of the first file that has not been submitted for loading.
+	 */
+	private int submitted;
+
+	/**
+	 * How many times a worker had to wait for a file.
+	 */
+	private final AtomicInteger waits;
+
+	@SuppressWarnings("unchecked")
+	public SourcePrefetcher(List<SourceFile> files, ExecutorService executor, int window) {
+		this.files = files;
+		this.loads = new CompletableFuture[files.size()];
+		this.executor = executor;
+		this.window = window;
+		this.waits = new AtomicInteger();
+	}
+
+	/**
+	 * Starts loading the first files.
+	 */
+	public void start() {
+		submitUntil(window);
+	}
+
+	private synchronized void submitUntil(int index) {
+		int end = Math.min(index, files.size());
+		for (; submitted < end; submitted++) {
+			SourceFile file = files.get(submitted);
+			loads[submitted] = CompletableFuture.supplyAsync(() -> {
+				try {
+					return file.load();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, executor);
+		}
+	}
+
+	/**
+	 * Takes a loaded file, waiting for it if it is not yet loaded. Each
+	 * file can be taken only once, after which it is no longer referenced.
+	 * @param index Index of the file in input list.
+	 * @return Source unit.
+	 * @throws IOException When the file could not be loaded.
+	 */
+	public SourceUnit take(int index) throws IOException {
+		submitUntil(index + 1 + window);
+		CompletableFuture<SourceUnit> load;
+		synchronized (this) {
+			load = loads[index];
+			loads[index] = null; // Don't keep source around after it has been processed
+		}
+		if (!load.isDone()) {
+			waits.incrementAndGet();
+		}
+		try {
+			return load.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets how many times a file was not loaded when it was needed.
+	 * @return Number of waits.
+	 */
+	public int waits() {
+		return waits.get();
+	}
+}
@@ -1,5 +1,8 @@
 package io.github.bensku.tsbind;
 
+import java.io.Reader;
+import java.nio.CharBuffer;
+
 /**
  * A single Java source file loaded to memory.
  *
@@ -12,12 +15,37 @@ public class SourceUnit {
 	public final String name;
 	
 	/**
-	 * Source code.
+	 * Source code. This is usually a {@link CharBuffer} decoded directly
+	 * from file contents, so that no extra copy needs to be made.
 	 */
-	public final String code;
+	public final CharSequence code;
 	
-	public SourceUnit(String name, String source) {
+	public SourceUnit(String name, CharSequence source) {
 		this.name = name;
 		this.code = source;
 	}
+	
+	/**
+	 * Creates a reader for the source code. Unlike {@link #code}, this is
+	 * accepted by JavaParser without converting it to string first.
+	 * @return A new reader.
+	 */
+	public Reader reader() {
+		CharBuffer buf = code instanceof CharBuffer ? ((CharBuffer) code).duplicate() : CharBuffer.wrap(code);
+		return new Reader() {
+			
+			@Override
+			public int read(char[] cbuf, int off, int len) {
+				if (!buf.hasRemaining()) {
+					return -1;
+				}
+				int count = Math.min(len, buf.remaining());
+				buf.get(cbuf, off, count);
+				return count;
+			}
+			
+			@Override
+			public void close() {}
+		};
+	}
 }
@@ -0,0 +1,102 @@
+package io.github.bensku.tsbind;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of classes in a symbol jar. Only names of zip entries are read,
+ * which needs just the central directory of the jar; classes themselves
+ * are not decoded.
+ *
+ * Indices are immutable, and can thus be shared between threads.
+ *
+ */
+public class SymbolIndex {
+
+	/**
+	 * Path to the jar this indexes.
+	 */
+	private final Path jar;
+
+	/**
+	 * Canonical names of classes, e.g. {@code java.util.Map.Entry}.
+	 */
+	private final Set<String> classes;
+
+	/**
+	 * Packages that have classes in the jar.
+	 */
+	private final Set<String> packages;
+
+	private SymbolIndex(Path jar, Set<String> classes, Set<String> packages) {
+		this.jar = jar;
+		this.classes = classes;
+		this.packages = packages;
+	}
+
+	/**
+	 * Builds index of a jar.
+	 * @param jar Symbol jar.
+	 * @return Symbol index.
+	 * @throws IOException When the jar cannot be read.
+	 */
+	public static SymbolIndex load(Path jar) throws IOException {
+		Set<String> classes = new HashSet<>();
+		Set<String> packages = new HashSet<>();
+		try (ZipFile zip = new ZipFile(jar.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				String path = entries.nextElement().getName();
+				// Classes of other Java versions are under META-INF/versions
+				if (!path.endsWith(".class") || path.startsWith("META-INF/") || path.endsWith("module-info.class")) {
+					continue;
+				}
+				// Nested classes are named like JarTypeSolver names them
+				String internalName = path.substring(0, path.length() - ".class".length());
+				classes.add(internalName.replace('/', '.').replace('$', '.'));
+				int slash = internalName.lastIndexOf('/');
+				packages.add(slash == -1 ? "" : internalName.substring(0, slash).replace('/', '.'));
+			}
+		}
+		return new SymbolIndex(jar, classes, packages);
+	}
+
+	public Path jar() {
+		return jar;
+	}
+
+	/**
+	 * Checks if the jar contains a class.
+	 * @param name Canonical name of class.
+	 * @return Whether the class is in jar.
+	 */
+	public boolean contains(String name) {
+		return classes.contains(name);
+	}
+
+	/**
+	 * Gets names of all classes in the jar.
+	 * @return Canonical names of classes.
+	 */
+	public Set<String> classNames() {
+		return Collections.unmodifiableSet(classes);
+	}
+
+	/**
+	 * Gets all packages that have classes in the jar.
+	 * @return Package names.
+	 */
+	public Set<String> packages() {
+		return Collections.unmodifiableSet(packages);
+	}
+
+	public int size() {
+		return classes.size();
+	}
+}
@@ -0,0 +1,293 @@
+package io.github.bensku.tsbind;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.nodeTypes.NodeWithTypeParameters;
+import com.github.javaparser.ast.type.ArrayType;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.TypeParameter;
+import com.github.javaparser.ast.type.WildcardType;
+
+import io.github.bensku.tsbind.ast.TypeRef;
+
+/**
+ * Resolves types of declarations from syntax alone: type parameters and
+ * type declarations in scope, imports, package of compilation unit and
+ * names of known types. This is much cheaper than symbol solver, but works
+ * only when names are unambiguous; e.g. names that might come from
+ * on-demand imports are not resolved. Callers should fall back to symbol
+ * solver when this fails.
+ *
+ * Member types inherited from supertypes are not known here. If such
+ * a type has same simple name as an imported or same-package type,
+ * the latter is used by mistake.
+ *
+ * This is thread-safe, and can be shared between {@link AstGenerator}s.
+ *
+ */
+public class SyntacticTypeResolver {
+
+	/**
+	 * Checks if a type with given canonical name exists in sources
+	 * or symbol jars.
+	 */
+	private final Predicate<String> knownTypes;
+
+	/**
+	 * Cached results of JDK type lookups.
+	 */
+	private final Map<String, Boolean> jdkTypes;
+
+	/**
+	 * Statistics.
+	 */
+	private final AtomicInteger fastPaths, fallbacks;
+
+	public SyntacticTypeResolver(Predicate<String> knownTypes) {
+		this.knownTypes = knownTypes;
+		this.jdkTypes = new ConcurrentHashMap<>();
+		this.fastPaths = new AtomicInteger();
+		this.fallbacks = new AtomicInteger();
+	}
+
+	/**
+	 * Resolves a type.
+	 * @param type Type in source code.
+	 * @param context Declaration that contains the type.
+	 * @return Type reference, or empty optional if symbol solver is needed.
+	 */
+	public Optional<TypeRef> resolve(Type type, BodyDeclaration<?> context) {
+		return Optional.ofNullable(toTypeRef(type, context));
+	}
+
+	/**
+	 * Resolves type of a parameter. Variadic parameters have array types.
+	 * @param param Parameter.
+	 * @param context Method or constructor that has the parameter.
+	 * @return Type reference, or empty optional if symbol solver is needed.
+	 */
+	public Optional<TypeRef> resolve(Parameter param, BodyDeclaration<?> context) {
+		TypeRef type = toTypeRef(param.getType(), context);
+		if (type != null && param.isVarArgs()) {
+			// Like symbol solver, wrap declared type in another array
+			type = TypeRef.array(type, param.getType().getArrayLevel() + 1);
+		}
+		return Optional.ofNullable(type);
+	}
+
+	/**
+	 * Records whether a declaration was resolved syntactically, or if
+	 * symbol solver was needed.
+	 * @param fastPath If syntactic resolution succeeded.
+	 */
+	public void count(boolean fastPath) {
+		(fastPath ? fastPaths : fallbacks).incrementAndGet();
+	}
+
+	public int fastPaths() {
+		return fastPaths.get();
+	}
+
+	public int fallbacks() {
+		return fallbacks.get();
+	}
+
+	private TypeRef toTypeRef(Type type, Node context) {
+		if (type.isVoidType()) {
+			return TypeRef.VOID;
+		} else if (type.isPrimitiveType()) {
+			switch (type.asPrimitiveType().getType()) {
+			case BOOLEAN:
+				return TypeRef.BOOLEAN;
+			case BYTE:
+				return TypeRef.BYTE;
+			case SHORT:
+				return TypeRef.SHORT;
+			case CHAR:
+				return TypeRef.CHAR;
+			case INT:
+				return TypeRef.INT;
+			case LONG:
+				return TypeRef.LONG;
+			case FLOAT:
+				return TypeRef.FLOAT;
+			case DOUBLE:
+				return TypeRef.DOUBLE;
+			default:
+				throw new AssertionError();
+			}
+		} else if (type.isArrayType()) {
+			ArrayType array = type.asArrayType();
+			TypeRef component = toTypeRef(array.getComponentType(), context);
+			return component != null ? TypeRef.array(component, array.getArrayLevel()) : null;
+		} else if (type.isClassOrInterfaceType()) {
+			ClassOrInterfaceType classType = type.asClassOrInterfaceType();
+			String name = canonicalName(classType, context);
+			if (name == null) {
+				return null;
+			}
+			List<Type> typeArgs = classType.getTypeArguments().orElse(null);
+			if (typeArgs == null || typeArgs.isEmpty()) {
+				return TypeRef.fromName(name);
+			}
+			List<TypeRef> params = new ArrayList<>(typeArgs.size());
+			for (Type arg : typeArgs) {
+				TypeRef param = toTypeRef(arg, context);
+				if (param == null) {
+					return null;
+				}
+				params.add(param);
+			}
+			return TypeRef.parametrized(TypeRef.fromName(name), params);
+		} else if (type.isWildcardType()) {
+			WildcardType wildcard = type.asWildcardType();
+			if (wildcard.getExtendedType().isPresent()) {
+				TypeRef extended = toTypeRef(wildcard.getExtendedType().get(), context);
+				return extended != null ? TypeRef.wildcard(extended) : null;
+			}
+			return TypeRef.OBJECT; // We can't describe ? super X in TS (AFAIK)
+		}
+		return null; // Union or intersection types, var, etc.
+	}
+
+	private String canonicalName(ClassOrInterfaceType type, Node context) {
+		ClassOrInterfaceType scope = type.getScope().orElse(null);
+		if (scope == null) {
+			return resolveName(type.getNameAsString(), context);
+		}
+		if (scope.getTypeArguments().isPresent()) {
+			return null; // e.g. Outer<String>.Inner, rare enough to not bother
+		}
+		// Scope is either a type (we're a member type of it) or a package
+		String scopeName = canonicalName(scope, context);
+		String name = (scopeName != null ? scopeName : scope.asString()) + "." + type.getNameAsString();
+		// Inherited member types would have different canonical names
+		return isKnown(name, context) ? name : null;
+	}
+
+	/**
+	 * Resolves a simple type name, following Java's shadowing rules.
+	 * @param name Simple name.
+	 * @param context Node where the name is used.
+	 * @return Canonical name of type, name of type variable, or null if
+	 * the name is ambiguous or unknown.
+	 */
+	private String resolveName(String name, Node context) {
+		// Type parameters and member types of enclosing declarations
+		for (Node node = context; node != null; node = node.getParentNode().orElse(null)) {
+			if (node instanceof NodeWithTypeParameters) {
+				for (TypeParameter param : ((NodeWithTypeParameters<?>) node).getTypeParameters()) {
+					if (param.getNameAsString().equals(name)) {
+						return name;
+					}
+				}
+			}
+			if (node instanceof TypeDeclaration) {
+				TypeDeclaration<?> type = (TypeDeclaration<?>) node;
+				if (type.getNameAsString().equals(name)) {
+					return type.getFullyQualifiedName().orElse(null);
+				}
+				for (BodyDeclaration<?> member : type.getMembers()) {
+					if (member.isTypeDeclaration()) {
+						TypeDeclaration<?> inner = member.asTypeDeclaration();
+						if (inner.getNameAsString().equals(name)) {
+							return inner.getFullyQualifiedName().orElse(null);
+						}
+					}
+				}
+			}
+		}
+
+		CompilationUnit unit = context.findCompilationUnit().orElse(null);
+		if (unit == null) {
+			return null;
+		}
+		boolean onDemandImports = false;
+		for (ImportDeclaration imported : unit.getImports()) {
+			if (imported.isAsterisk()) {
+				onDemandImports = true;
+			} else if (imported.getName().getIdentifier().equals(name)) {
+				// Static imports could also import fields and methods, can't tell without resolving
+				return imported.isStatic() ? null : imported.getNameAsString();
+			}
+		}
+		String packageName = unit.getPackageDeclaration().map(decl -> decl.getNameAsString() + ".").orElse("");
+		for (TypeDeclaration<?> type : unit.getTypes()) {
+			if (type.getNameAsString().equals(name)) {
+				return packageName + name;
+			}
+		}
+		if (knownTypes.test(packageName + name)) {
+			return packageName + name;
+		}
+		if (onDemandImports) {
+			return null; // Could come from any of them
+		}
+		return isJdkType("java.lang." + name) ? "java.lang." + name : null;
+	}
+
+	private boolean isKnown(String name, Node context) {
+		if (knownTypes.test(name) || isJdkType(name)) {
+			return true;
+		}
+		// Member types declared in same file
+		CompilationUnit unit = context.findCompilationUnit().orElse(null);
+		return unit != null && declaredTypes(unit).contains(name);
+	}
+
+	private static Set<String> declaredTypes(CompilationUnit unit) {
+		Set<String> names = new HashSet<>();
+		List<TypeDeclaration<?>> pending = new ArrayList<>(unit.getTypes());
+		while (!pending.isEmpty()) {
+			TypeDeclaration<?> type = pending.remove(pending.size() - 1);
+			type.getFullyQualifiedName().ifPresent(names::add);
+			for (BodyDeclaration<?> member : type.getMembers()) {
+				if (member instanceof TypeDeclaration) {
+					pending.add((TypeDeclaration<?>) member);
+				}
+			}
+		}
+		return names;
+	}
+
+	private boolean isJdkType(String name) {
+		// Symbol solver only looks for these from JDK
+		if (!name.startsWith("java.") && !name.startsWith("javax.")) {
+			return false;
+		}
+		Boolean found = jdkTypes.get(name);
+		if (found == null) {
+			found = false;
+			// We don't know where package name ends, so try all possible nesting levels
+			String path = name.replace('.', '/');
+			while (true) {
+				if (ClassLoader.getSystemResource(path + ".class") != null) {
+					found = true;
+					break;
+				}
+				int slash = path.lastIndexOf('/');
+				if (slash == -1) {
+					break;
+				}
+				path = path.substring(0, slash) + '$' + path.substring(slash + 1);
+			}
+			jdkTypes.put(name, found);
+		}
+		return found;
+	}
+}
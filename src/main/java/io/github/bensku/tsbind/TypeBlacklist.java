@@ -0,0 +1,141 @@
+package io.github.bensku.tsbind;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.github.bensku.tsbind.ast.AstNode;
+import io.github.bensku.tsbind.ast.TypeDefinition;
+import io.github.bensku.tsbind.ast.TypeRef;
+
+/**
+ * Blacklisted type name fragments. All fragments are compiled into a single
+ * Aho-Corasick automaton, so a type name is scanned only once regardless
+ * of blacklist size. Verdicts are cached per type name.
+ *
+ * This is thread-safe, and can be shared between {@link AstGenerator}s.
+ *
+ */
+public class TypeBlacklist {
+
+	private static class State {
+
+		/**
+		 * Transitions to next states.
+		 */
+		final Map<Character, State> next = new HashMap<>();
+
+		/**
+		 * State to continue from when there is no transition.
+		 */
+		State fail;
+
+		/**
+		 * If a fragment ends in this state (or in its fail states).
+		 */
+		boolean match;
+	}
+
+	/**
+	 * Initial state of the automaton.
+	 */
+	private final State root;
+
+	/**
+	 * Cached results for type names.
+	 */
+	private final Map<String, Boolean> verdicts;
+
+	public TypeBlacklist(List<String> fragments) {
+		this.root = new State();
+		this.verdicts = new ConcurrentHashMap<>();
+
+		// Build a trie of fragments
+		for (String fragment : fragments) {
+			State state = root;
+			for (int i = 0; i < fragment.length(); i++) {
+				state = state.next.computeIfAbsent(fragment.charAt(i), c -> new State());
+			}
+			state.match = true;
+		}
+
+		// Compute fail links in breadth-first order, so that fail states
+		// (which are always shallower) have been processed before
+		Queue<State> queue = new ArrayDeque<>();
+		root.fail = root;
+		for (State child : root.next.values()) {
+			child.fail = root;
+			child.match |= root.match;
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			State state = queue.remove();
+			for (Map.Entry<Character, State> entry : state.next.entrySet()) {
+				State child = entry.getValue();
+				child.fail = transition(state.fail, entry.getKey());
+				child.match |= child.fail.match;
+				queue.add(child);
+			}
+		}
+	}
+
+	private State transition(State state, char c) {
+		while (true) {
+			State next = state.next.get(c);
+			if (next != null) {
+				return next;
+			} else if (state == root) {
+				return root;
+			}
+			state = state.fail;
+		}
+	}
+
+	private boolean scan(String name) {
+		State state = root;
+		if (state.match) {
+			return true; // Empty fragment matches everything
+		}
+		for (int i = 0; i < name.length(); i++) {
+			state = transition(state, name.charAt(i));
+			if (state.match) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a type name contains any blacklisted fragment.
+	 * @param name Type name.
+	 * @return Whether the type is blacklisted.
+	 */
+	public boolean isBlacklisted(String name) {
+		Boolean verdict = verdicts.get(name);
+		if (verdict == null) {
+			verdict = scan(name);
+			verdicts.put(name, verdict);
+		}
+		return verdict;
+	}
+
+	/**
+	 * Checks if a node is or uses blacklisted types.
+	 * @param node Type reference, type definition or member.
+	 * @return Whether the node should be omitted.
+	 */
+	public boolean isBlacklisted(AstNode node) {
+		// If this is a type reference or declaration, check only its name
+		if (node instanceof TypeRef) {
+			return isBlacklisted(((TypeRef) node).name());
+		} else if (node instanceof TypeDefinition) {
+			return isBlacklisted(((TypeDefinition) node).ref.name());
+		}
+
+		// Check type references used by other nodes, stopping at first match
+		return node.anyMatch(n -> n instanceof TypeRef && isBlacklisted(((TypeRef) n).name()));
+	}
+}
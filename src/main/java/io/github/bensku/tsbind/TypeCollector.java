@@ -0,0 +1,128 @@
+package io.github.bensku.tsbind;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import io.github.bensku.tsbind.ast.TypeDefinition;
+
+/**
+ * Collects parsed types to a type table as workers produce them. Types are
+ * requested one at a time, so with a bounded publisher (e.g.
+ * {@link java.util.concurrent.SubmissionPublisher}), workers slow down
+ * instead of piling up results when collection falls behind.
+ *
+ * Types may arrive in any order. Each has its position in input order;
+ * if several types have same name, the one that is last in input order
+ * is used. Thus, the result does not depend on thread count.
+ *
+ * If a {@link TypeSpill} is given, types are stored there, and only their
+ * summaries are kept in memory.
+ *
+ */
+public class TypeCollector implements Flow.Subscriber<TypeCollector.Parsed> {
+
+	/**
+	 * A parsed type and its position in input order.
+	 */
+	public static class Parsed {
+
+		final int order;
+
+		final TypeDefinition type;
+
+		public Parsed(int order, TypeDefinition type) {
+			this.order = order;
+			this.type = type;
+		}
+	}
+
+	/**
+	 * Types collected so far.
+	 */
+	private final Map<String, Parsed> types;
+
+	/**
+	 * Input order of first type of each name.
+	 */
+	private final Map<String, Integer> firstOrder;
+
+	/**
+	 * Completed when all types have been collected.
+	 */
+	private final CompletableFuture<Map<String, TypeDefinition>> result;
+
+	/**
+	 * Spill for full types, or null if they're kept in memory.
+	 */
+	private final TypeSpill spill;
+
+	private Flow.Subscription subscription;
+
+	public TypeCollector(TypeSpill spill) {
+		this.spill = spill;
+		this.types = new HashMap<>();
+		this.firstOrder = new HashMap<>();
+		this.result = new CompletableFuture<>();
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		this.subscription = subscription;
+		subscription.request(1);
+	}
+
+	@Override
+	public void onNext(Parsed item) {
+		String name = item.type.name();
+		System.out.println("Parsed type " + name);
+		Parsed previous = types.get(name);
+		if (previous != null) {
+			System.err.println("duplicate type " + name + "; using the last definition found");
+		}
+		if (previous == null || previous.order < item.order) {
+			if (spill != null) {
+				try {
+					item = new Parsed(item.order, spill.put(item.type));
+				} catch (IOException e) {
+					subscription.cancel();
+					result.completeExceptionally(e);
+					return;
+				}
+			}
+			types.put(name, item);
+		}
+		firstOrder.merge(name, item.order, Math::min);
+		subscription.request(1);
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		result.completeExceptionally(throwable);
+	}
+
+	@Override
+	public void onComplete() {
+		// Iteration order of hash map depends on insertion order, and it affects output
+		List<String> names = new ArrayList<>(types.keySet());
+		names.sort(Comparator.comparing(firstOrder::get));
+		Map<String, TypeDefinition> table = new HashMap<>();
+		for (String name : names) {
+			table.put(name, types.get(name).type);
+		}
+		result.complete(table);
+	}
+
+	/**
+	 * Gets the type table. It is available once publisher has been closed.
+	 * @return Types (or their summaries) by their names.
+	 */
+	public CompletableFuture<Map<String, TypeDefinition>> result() {
+		return result;
+	}
+}
@@ -0,0 +1,145 @@
+package io.github.bensku.tsbind;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import io.github.bensku.tsbind.ast.AstSerializer;
+import io.github.bensku.tsbind.ast.Constructor;
+import io.github.bensku.tsbind.ast.Field;
+import io.github.bensku.tsbind.ast.Getter;
+import io.github.bensku.tsbind.ast.JavadocStore;
+import io.github.bensku.tsbind.ast.Member;
+import io.github.bensku.tsbind.ast.Method;
+import io.github.bensku.tsbind.ast.Setter;
+import io.github.bensku.tsbind.ast.TypeDefinition;
+
+/**
+ * Temporary on-disk storage for parsed types. Only summaries of types are
+ * kept in memory; full types are loaded back when they are needed.
+ *
+ * A summary has the supertypes, methods and fields of a type, but not its
+ * constructors or inner types. That is enough for passes that look up
+ * supertypes of other types. Javadoc is stored in a {@link JavadocStore},
+ * and both stored types and summaries only refer to it.
+ *
+ * Types are stored by one thread at a time, and loaded only after all of
+ * them have been stored.
+ *
+ */
+public class TypeSpill {
+
+	/**
+	 * Directory where types are stored.
+	 */
+	private final Path dir;
+
+	/**
+	 * File numbers of stored types. Type names are not used as file names,
+	 * because they might differ only by case.
+	 */
+	private final Map<String, Integer> files;
+
+	/**
+	 * Store for Javadoc of types.
+	 */
+	private final JavadocStore javadocs;
+
+	/**
+	 * Creates a spill in a new temporary directory.
+	 * @param javadocs Store for Javadoc of types. It must stay open as long
+	 * as this spill is used.
+	 * @throws IOException When the directory cannot be created.
+	 */
+	public TypeSpill(JavadocStore javadocs) throws IOException {
+		this.dir = Files.createTempDirectory("tsbind-spill");
+		this.files = new HashMap<>();
+		this.javadocs = javadocs;
+	}
+
+	/**
+	 * Stores a type, replacing a previously stored type with same name.
+	 * @param type Type definition.
+	 * @return Summary of the type.
+	 * @throws IOException When writing the type fails.
+	 */
+	public TypeDefinition put(TypeDefinition type) throws IOException {
+		Integer file = files.get(type.name());
+		if (file == null) {
+			file = files.size();
+			files.put(type.name(), file);
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dir.resolve(file.toString()))))) {
+			AstSerializer.writeType(out, type, javadocs);
+		}
+		return summarize(type);
+	}
+
+	/**
+	 * Loads a full type.
+	 * @param name Type name.
+	 * @return Type definition.
+	 * @throws IOException When the type has not been stored, or reading it
+	 * fails.
+	 */
+	public TypeDefinition load(String name) throws IOException {
+		Integer file = files.get(name);
+		if (file == null) {
+			throw new IOException("type " + name + " has not been stored");
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve(file.toString()))))) {
+			return AstSerializer.readType(in, javadocs);
+		}
+	}
+
+	/**
+	 * Deletes all stored types.
+	 * @throws IOException When deleting fails.
+	 */
+	public void delete() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(dir);
+	}
+
+	private static TypeDefinition summarize(TypeDefinition type) {
+		List<Member> members = new ArrayList<>();
+		for (Member member : type.members()) {
+			// Subclasses first, they're also instances of their parents
+			if (member instanceof Getter) {
+				Getter getter = (Getter) member;
+				members.add(new Getter(getter.originalName(), getter.returnType, getter.javadoc,
+						getter.isPublic, getter.isStatic, getter.isOverride));
+			} else if (member instanceof Setter) {
+				Setter setter = (Setter) member;
+				members.add(new Setter(setter.originalName(), setter.params.get(0).type, setter.javadoc,
+						setter.isPublic, setter.isStatic, setter.isOverride));
+			} else if (member instanceof Constructor) {
+				continue; // Never inherited
+			} else if (member instanceof Method) {
+				Method method = (Method) member;
+				members.add(new Method(method.name, method.returnType, method.params, method.typeParams,
+						method.javadoc, method.isPublic, method.isStatic, method.isOverride));
+			} else if (member instanceof Field) {
+				Field field = (Field) member;
+				members.add(new Field(field.name, field.type, field.javadoc,
+						field.isPublic, field.isStatic, field.isFinal));
+			}
+			// Inner types are not looked up from their outer types
+		}
+		return new TypeDefinition(type.javadoc, type.isStatic, type.ref, type.kind, type.isAbstract,
+				type.superTypes, type.interfaces, members);
+	}
+}
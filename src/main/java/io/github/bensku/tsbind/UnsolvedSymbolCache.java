@@ -0,0 +1,57 @@
+package io.github.bensku.tsbind;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Names of types that no type solver knows. When a dependency is missing,
+ * the same few names are looked up while resolving thousands of members
+ * in many files; only the first lookup needs to go to the solvers.
+ *
+ * This is thread-safe, and can be shared between {@link AstGenerator}s.
+ *
+ */
+public class UnsolvedSymbolCache {
+
+	private final Set<String> names;
+
+	/**
+	 * How many lookups were answered from this cache.
+	 */
+	private final AtomicInteger hits;
+
+	public UnsolvedSymbolCache() {
+		this.names = ConcurrentHashMap.newKeySet();
+		this.hits = new AtomicInteger();
+	}
+
+	/**
+	 * Checks if a name is known to be unsolvable.
+	 * @param name Type name.
+	 * @return Whether solving the name has failed before.
+	 */
+	public boolean contains(String name) {
+		if (names.contains(name)) {
+			hits.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Marks a name as unsolvable.
+	 * @param name Type name.
+	 */
+	public void add(String name) {
+		names.add(name);
+	}
+
+	public int hits() {
+		return hits.get();
+	}
+
+	public int size() {
+		return names.size();
+	}
+}
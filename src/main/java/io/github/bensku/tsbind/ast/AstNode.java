@@ -1,7 +1,15 @@
 package io.github.bensku.tsbind.ast;
 
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+/**
+ * Node of the AST. Nodes are immutable, so they can be shared between
+ * threads. Transformation passes create modified copies of them instead,
+ * e.g. with {@link Member#withJavadoc(Javadoc)} or
+ * {@link TypeDefinition#toBuilder()}.
+ *
+ */
 public interface AstNode {
 
 	/**
@@ -9,4 +17,13 @@ public interface AstNode {
 	 * @param visitor Visitor to be called for node found..
 	 */
 	void walk(Consumer<AstNode> visitor);
+
+	/**
+	 * Checks if any node that {@link #walk(Consumer)} would visit matches
+	 * the given predicate. Nodes are tested in the same order, and walking
+	 * stops at first match.
+	 * @param predicate Predicate to test nodes with.
+	 * @return Whether a matching node was found.
+	 */
+	boolean anyMatch(Predicate<AstNode> predicate);
 }
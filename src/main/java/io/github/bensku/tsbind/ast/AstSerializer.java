@@ -0,0 +1,307 @@
+package io.github.bensku.tsbind.ast;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary serialization for AST of types. Used to store results of
+ * parsing outside of memory.
+ *
+ */
+public class AstSerializer {
+
+	// Member tags
+	private static final byte TYPE = 0;
+	private static final byte FIELD = 1;
+	private static final byte METHOD = 2;
+	private static final byte CONSTRUCTOR = 3;
+	private static final byte GETTER = 4;
+	private static final byte SETTER = 5;
+
+	// Type reference tags
+	private static final byte SIMPLE = 0;
+	private static final byte WILDCARD = 1;
+	private static final byte PARAMETRIZED = 2;
+	private static final byte ARRAY = 3;
+	private static final byte NULLABLE = 4;
+
+	/**
+	 * Length that marks Javadoc as a reference to {@link JavadocStore}.
+	 */
+	private static final int STORED = -2;
+
+	private AstSerializer() {}
+
+	/**
+	 * Writes a type definition, including its members and inner types.
+	 * @param out Output.
+	 * @param type Type definition.
+	 * @throws IOException When writing fails.
+	 */
+	public static void writeType(DataOutput out, TypeDefinition type) throws IOException {
+		writeType(out, type, null);
+	}
+	
+	/**
+	 * Writes a type definition, including its members and inner types.
+	 * Javadoc that is in the given store is written as references to it,
+	 * which are only valid as long as the store is open.
+	 * @param out Output.
+	 * @param type Type definition.
+	 * @param store Javadoc store, or null to always write Javadoc text.
+	 * @throws IOException When writing fails.
+	 */
+	public static void writeType(DataOutput out, TypeDefinition type, JavadocStore store) throws IOException {
+		writeJavadoc(out, type.javadoc, store);
+		out.writeBoolean(type.isStatic);
+		writeRef(out, type.ref);
+		out.writeByte(type.kind.ordinal());
+		out.writeBoolean(type.isAbstract);
+		writeRefs(out, type.superTypes);
+		writeRefs(out, type.interfaces);
+		List<Member> members = type.members();
+		out.writeInt(members.size());
+		for (Member member : members) {
+			writeMember(out, member, store);
+		}
+	}
+
+	/**
+	 * Reads a type definition written with {@link #writeType(DataOutput, TypeDefinition)}.
+	 * @param in Input.
+	 * @return Type definition.
+	 * @throws IOException When reading fails or data is malformed.
+	 */
+	public static TypeDefinition readType(DataInput in) throws IOException {
+		return readType(in, null);
+	}
+	
+	/**
+	 * Reads a type definition written with
+	 * {@link #writeType(DataOutput, TypeDefinition, JavadocStore)}.
+	 * @param in Input.
+	 * @param store Javadoc store to resolve references with and put new
+	 * Javadoc text to, or null to keep text in memory.
+	 * @return Type definition.
+	 * @throws IOException When reading fails or data is malformed.
+	 */
+	public static TypeDefinition readType(DataInput in, JavadocStore store) throws IOException {
+		Javadoc javadoc = readJavadoc(in, store);
+		boolean isStatic = in.readBoolean();
+		TypeRef ref = readRef(in);
+		TypeDefinition.Kind kind = TypeDefinition.Kind.values()[in.readByte()];
+		boolean isAbstract = in.readBoolean();
+		List<TypeRef> superTypes = readRefs(in);
+		List<TypeRef> interfaces = readRefs(in);
+		int count = in.readInt();
+		List<Member> members = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			members.add(readMember(in, store));
+		}
+		return new TypeDefinition(javadoc, isStatic, ref, kind, isAbstract, superTypes, interfaces, members);
+	}
+
+	private static void writeMember(DataOutput out, Member member, JavadocStore store) throws IOException {
+		// Subclasses first, they're also instances of their parents
+		if (member instanceof TypeDefinition) {
+			out.writeByte(TYPE);
+			writeType(out, (TypeDefinition) member, store);
+		} else if (member instanceof Field) {
+			Field field = (Field) member;
+			out.writeByte(FIELD);
+			out.writeUTF(field.name);
+			writeRef(out, field.type);
+			writeJavadoc(out, field.javadoc, store);
+			out.writeBoolean(field.isPublic);
+			out.writeBoolean(field.isStatic);
+			out.writeBoolean(field.isFinal);
+		} else if (member instanceof Getter) {
+			Getter getter = (Getter) member;
+			out.writeByte(GETTER);
+			out.writeUTF(getter.originalName());
+			writeRef(out, getter.returnType);
+			writeJavadoc(out, getter.javadoc, store);
+			out.writeBoolean(getter.isPublic);
+			out.writeBoolean(getter.isStatic);
+			out.writeBoolean(getter.isOverride);
+		} else if (member instanceof Setter) {
+			Setter setter = (Setter) member;
+			out.writeByte(SETTER);
+			out.writeUTF(setter.originalName());
+			writeRef(out, setter.params.get(0).type);
+			writeJavadoc(out, setter.javadoc, store);
+			out.writeBoolean(setter.isPublic);
+			out.writeBoolean(setter.isStatic);
+			out.writeBoolean(setter.isOverride);
+		} else if (member instanceof Constructor) {
+			Constructor constructor = (Constructor) member;
+			out.writeByte(CONSTRUCTOR);
+			out.writeUTF(constructor.name);
+			writeParams(out, constructor.params);
+			writeJavadoc(out, constructor.javadoc, store);
+			out.writeBoolean(constructor.isPublic);
+		} else if (member instanceof Method) {
+			Method method = (Method) member;
+			out.writeByte(METHOD);
+			out.writeUTF(method.name);
+			writeRef(out, method.returnType);
+			writeParams(out, method.params);
+			writeRefs(out, method.typeParams);
+			writeJavadoc(out, method.javadoc, store);
+			out.writeBoolean(method.isPublic);
+			out.writeBoolean(method.isStatic);
+			out.writeBoolean(method.isOverride);
+		} else {
+			throw new AssertionError("unexpected member: " + member);
+		}
+	}
+
+	private static Member readMember(DataInput in, JavadocStore store) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case TYPE:
+			return readType(in, store);
+		case FIELD:
+			return new Field(in.readUTF(), readRef(in), readJavadoc(in, store),
+					in.readBoolean(), in.readBoolean(), in.readBoolean());
+		case GETTER:
+			return new Getter(in.readUTF(), readRef(in), readJavadoc(in, store),
+					in.readBoolean(), in.readBoolean(), in.readBoolean());
+		case SETTER:
+			return new Setter(in.readUTF(), readRef(in), readJavadoc(in, store),
+					in.readBoolean(), in.readBoolean(), in.readBoolean());
+		case CONSTRUCTOR:
+			return new Constructor(in.readUTF(), readParams(in), readJavadoc(in, store), in.readBoolean());
+		case METHOD:
+			return new Method(in.readUTF(), readRef(in), readParams(in), readRefs(in), readJavadoc(in, store),
+					in.readBoolean(), in.readBoolean(), in.readBoolean());
+		default:
+			throw new IOException("unknown member tag " + tag);
+		}
+	}
+
+	private static void writeParams(DataOutput out, List<Parameter> params) throws IOException {
+		out.writeInt(params.size());
+		for (Parameter param : params) {
+			out.writeUTF(param.name);
+			writeRef(out, param.type);
+			out.writeBoolean(param.varargs);
+		}
+	}
+
+	private static List<Parameter> readParams(DataInput in) throws IOException {
+		int count = in.readInt();
+		List<Parameter> params = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			params.add(new Parameter(in.readUTF(), readRef(in), in.readBoolean()));
+		}
+		return params;
+	}
+
+	private static void writeRef(DataOutput out, TypeRef ref) throws IOException {
+		if (ref instanceof TypeRef.Simple) {
+			out.writeByte(SIMPLE);
+			out.writeUTF(ref.name());
+		} else if (ref instanceof TypeRef.Wildcard) {
+			out.writeByte(WILDCARD);
+			writeRef(out, ((TypeRef.Wildcard) ref).extendedType());
+		} else if (ref instanceof TypeRef.Parametrized) {
+			TypeRef.Parametrized parametrized = (TypeRef.Parametrized) ref;
+			out.writeByte(PARAMETRIZED);
+			writeRef(out, parametrized.baseType());
+			writeRefs(out, parametrized.typeParams());
+		} else if (ref instanceof TypeRef.Array) {
+			TypeRef.Array array = (TypeRef.Array) ref;
+			out.writeByte(ARRAY);
+			writeRef(out, array.componentType());
+			out.writeInt(array.arrayDimensions());
+		} else if (ref instanceof TypeRef.Nullable) {
+			out.writeByte(NULLABLE);
+			writeRef(out, ((TypeRef.Nullable) ref).nullableType());
+		} else {
+			throw new AssertionError("unexpected type: " + ref);
+		}
+	}
+
+	private static TypeRef readRef(DataInput in) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+		case SIMPLE:
+			return TypeRef.simple(in.readUTF());
+		case WILDCARD:
+			return TypeRef.wildcard(readRef(in));
+		case PARAMETRIZED:
+			return TypeRef.parametrized(readRef(in), readRefs(in));
+		case ARRAY:
+			return readRef(in).makeArray(in.readInt());
+		case NULLABLE:
+			return TypeRef.nullable(readRef(in));
+		default:
+			throw new IOException("unknown type tag " + tag);
+		}
+	}
+
+	private static void writeRefs(DataOutput out, List<TypeRef> refs) throws IOException {
+		out.writeInt(refs.size());
+		for (TypeRef ref : refs) {
+			writeRef(out, ref);
+		}
+	}
+
+	private static List<TypeRef> readRefs(DataInput in) throws IOException {
+		int count = in.readInt();
+		List<TypeRef> refs = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			refs.add(readRef(in));
+		}
+		return refs;
+	}
+
+	private static void writeJavadoc(DataOutput out, Javadoc doc, JavadocStore store) throws IOException {
+		JavadocStore.Stored stored = store != null && doc != null ? store.owned(doc) : null;
+		if (stored != null) {
+			out.writeInt(STORED);
+			out.writeLong(stored.offset);
+			out.writeInt(stored.size);
+			out.writeInt(stored.length);
+		} else {
+			writeString(out, doc != null ? doc.text() : null);
+		}
+	}
+
+	private static Javadoc readJavadoc(DataInput in, JavadocStore store) throws IOException {
+		int length = in.readInt();
+		if (length == STORED) {
+			if (store == null) {
+				throw new IOException("javadoc reference without store");
+			}
+			return store.get(in.readLong(), in.readInt(), in.readInt());
+		}
+		String text = readString(in, length);
+		return store != null ? store.put(text) : Javadoc.of(text);
+	}
+
+	private static void writeString(DataOutput out, String str) throws IOException {
+		// DataOutput.writeUTF() can't handle Javadoc longer than 64 kilobytes
+		if (str == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInput in, int length) throws IOException {
+		if (length == -1) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
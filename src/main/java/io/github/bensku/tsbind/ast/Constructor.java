@@ -5,9 +5,12 @@ import java.util.List;
 
 public class Constructor extends Method {
 
-	public Constructor(String name, List<Parameter> params, String javadoc, boolean isPublic) {
+	public Constructor(String name, List<Parameter> params, Javadoc javadoc, boolean isPublic) {
 		super(name, TypeRef.VOID, params, Collections.emptyList(), javadoc, isPublic, false, false);
 	}
-
 	
+	@Override
+	public Constructor withJavadoc(Javadoc javadoc) {
+		return new Constructor(name, params, javadoc, isPublic);
+	}
 }
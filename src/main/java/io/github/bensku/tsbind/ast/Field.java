@@ -2,6 +2,7 @@ package io.github.bensku.tsbind.ast;
 
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class Field extends Member {
 	
@@ -20,7 +21,7 @@ public class Field extends Member {
 	 */
 	public final boolean isFinal;
 	
-	public Field(String name, TypeRef type, String javadoc, boolean isPublic, boolean isStatic, boolean isFinal) {
+	public Field(String name, TypeRef type, Javadoc javadoc, boolean isPublic, boolean isStatic, boolean isFinal) {
 		super(javadoc, isPublic, isStatic);
 		Objects.requireNonNull(name);
 		Objects.requireNonNull(type);
@@ -35,8 +36,18 @@ public class Field extends Member {
 		type.walk(visitor);
 	}
 
+	@Override
+	public boolean anyMatch(Predicate<AstNode> predicate) {
+		return predicate.test(this) || type.anyMatch(predicate);
+	}
+
 	@Override
 	public String name() {
 		return name;
 	}
+	
+	@Override
+	public Field withJavadoc(Javadoc javadoc) {
+		return new Field(name, type, javadoc, isPublic, isStatic, isFinal);
+	}
 }
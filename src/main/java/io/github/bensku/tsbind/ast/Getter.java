@@ -16,7 +16,7 @@ public class Getter extends Method {
 	
 	private final String originalName;
 
-	public Getter(String name, TypeRef type, String javadoc, boolean isPublic, boolean isStatic, boolean isOverride) {
+	public Getter(String name, TypeRef type, Javadoc javadoc, boolean isPublic, boolean isStatic, boolean isOverride) {
 		super(getterName(name), type, Collections.emptyList(), Collections.emptyList(), javadoc, isPublic, isStatic, isOverride);
 		this.originalName = name;
 	}
@@ -24,5 +24,10 @@ public class Getter extends Method {
 	public String originalName() {
 		return originalName;
 	}
+	
+	@Override
+	public Getter withJavadoc(Javadoc javadoc) {
+		return new Getter(originalName, returnType, javadoc, isPublic, isStatic, isOverride);
+	}
 
 }
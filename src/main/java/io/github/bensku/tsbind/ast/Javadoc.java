@@ -0,0 +1,55 @@
+package io.github.bensku.tsbind.ast;
+
+/**
+ * Handle to text of a Javadoc comment. The text is not necessarily kept in
+ * memory (see {@link JavadocStore}); it is loaded when {@link #text()} is
+ * called, which usually happens only when it is emitted.
+ *
+ */
+public abstract class Javadoc {
+
+	/**
+	 * Creates a handle that keeps the text in memory.
+	 * @param text Javadoc text, or null.
+	 * @return Javadoc, or null if text was null.
+	 */
+	public static Javadoc of(String text) {
+		return text != null ? new Inline(text) : null;
+	}
+	
+	/**
+	 * Gets length of the text without loading it.
+	 * @return Length in characters.
+	 */
+	public abstract int length();
+	
+	/**
+	 * Gets the text, loading it if necessary.
+	 * @return Javadoc text.
+	 */
+	public abstract String text();
+	
+	@Override
+	public String toString() {
+		return text();
+	}
+	
+	private static class Inline extends Javadoc {
+		
+		private final String text;
+		
+		Inline(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public int length() {
+			return text.length();
+		}
+
+		@Override
+		public String text() {
+			return text;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package io.github.bensku.tsbind.ast;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only temporary file that holds Javadoc text. Members only keep
+ * {@link Javadoc} handles with offset and length of their text in the
+ * file, so comments don't stay in memory between parsing and emitting.
+ *
+ * This is thread-safe without locking. Each comment reserves its range of
+ * the file and is written there directly, so parser threads never wait for
+ * each other. The file is deleted when the store is closed, after which
+ * handles to it can no longer be read.
+ *
+ */
+public class JavadocStore implements Closeable {
+
+	/**
+	 * Handle to Javadoc in this store.
+	 */
+	class Stored extends Javadoc {
+		
+		/**
+		 * Position of the text in file.
+		 */
+		final long offset;
+		
+		/**
+		 * Length of UTF-8 encoded text.
+		 */
+		final int size;
+		
+		/**
+		 * Length of text in characters.
+		 */
+		final int length;
+		
+		Stored(long offset, int size, int length) {
+			this.offset = offset;
+			this.size = size;
+			this.length = length;
+		}
+		
+		JavadocStore owner() {
+			return JavadocStore.this;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public String text() {
+			try {
+				return read(offset, size);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+	
+	private final FileChannel channel;
+	
+	/**
+	 * End of reserved part of file.
+	 */
+	private final AtomicLong end;
+	
+	/**
+	 * Creates a store in a new temporary file.
+	 * @throws IOException When the file cannot be created.
+	 */
+	public JavadocStore() throws IOException {
+		Path file = Files.createTempFile("tsbind-javadoc", ".tmp");
+		this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.DELETE_ON_CLOSE);
+		this.end = new AtomicLong();
+	}
+	
+	/**
+	 * Stores Javadoc text.
+	 * @param text Text, or null.
+	 * @return Handle to stored text, or null if text was null.
+	 */
+	public Javadoc put(String text) {
+		if (text == null) {
+			return null;
+		}
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		long offset = end.getAndAdd(bytes.length);
+		try {
+			// Positional writes don't move channel position, so they can run concurrently
+			ByteBuffer buf = ByteBuffer.wrap(bytes);
+			while (buf.hasRemaining()) {
+				channel.write(buf, offset + buf.position());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		// Text is written before handle is returned, so it can always be read
+		return new Stored(offset, bytes.length, text.length());
+	}
+	
+	/**
+	 * Gets a handle to text that is already in this store.
+	 * @param offset Position of the text.
+	 * @param size Length of UTF-8 encoded text.
+	 * @param length Length of text in characters.
+	 * @return Javadoc handle.
+	 */
+	Javadoc get(long offset, int size, int length) {
+		return new Stored(offset, size, length);
+	}
+	
+	/**
+	 * Checks if a Javadoc handle refers to this store.
+	 * @param doc Javadoc.
+	 * @return Stored Javadoc, or null if it is not from this store.
+	 */
+	Stored owned(Javadoc doc) {
+		if (doc instanceof Stored) {
+			Stored stored = (Stored) doc;
+			return stored.owner() == this ? stored : null;
+		}
+		return null;
+	}
+	
+	private String read(long offset, int size) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate(size);
+		while (bytes.hasRemaining()) {
+			if (channel.read(bytes, offset + bytes.position()) == -1) {
+				throw new IOException("javadoc store truncated");
+			}
+		}
+		return new String(bytes.array(), StandardCharsets.UTF_8);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
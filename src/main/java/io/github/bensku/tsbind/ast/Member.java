@@ -1,13 +1,11 @@
 package io.github.bensku.tsbind.ast;
 
-import java.util.Optional;
-
 public abstract class Member implements AstNode {
 
 	/**
-	 * Javadoc of this member, if it exists.
+	 * Javadoc of this member, or null if it doesn't have one.
 	 */
-	public Optional<String> javadoc;
+	public final Javadoc javadoc;
 	
 	/**
 	 * Whether or not this member is public. Note that in some cases e.g.
@@ -20,12 +18,19 @@ public abstract class Member implements AstNode {
 	 */
 	public final boolean isStatic;
 	
-	public Member(String javadoc, boolean isPublic, boolean isStatic) {
-		this.javadoc = Optional.ofNullable(javadoc);
+	public Member(Javadoc javadoc, boolean isPublic, boolean isStatic) {
+		this.javadoc = javadoc;
 		this.isPublic = isPublic;
 		this.isStatic = isStatic;
 	}
 	
 	public abstract String name();
 	
+	/**
+	 * Creates a copy of this member with different Javadoc.
+	 * @param javadoc New Javadoc, or null.
+	 * @return New member.
+	 */
+	public abstract Member withJavadoc(Javadoc javadoc);
+	
 }
@@ -2,6 +2,7 @@ package io.github.bensku.tsbind.ast;
 
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class Method extends Member {
 
@@ -30,13 +31,14 @@ public class Method extends Member {
 	 */
 	public final boolean isOverride;
 	
-	public Method(String name, TypeRef returnType, List<Parameter> params, List<TypeRef> typeParams, String javadoc,
+	public Method(String name, TypeRef returnType, List<Parameter> params, List<TypeRef> typeParams, Javadoc javadoc,
 			boolean isPublic, boolean isStatic, boolean isOverride) {
 		super(javadoc, isPublic, isStatic);
 		this.name = name;
 		this.returnType = returnType;
-		this.params = params;
-		this.typeParams = typeParams;
+		// Immutable lists are compact, and empty ones are shared
+		this.params = List.copyOf(params);
+		this.typeParams = List.copyOf(typeParams);
 		this.isOverride = isOverride;
 	}
 	
@@ -57,9 +59,21 @@ public class Method extends Member {
 		typeParams.forEach(param -> param.walk(visitor));
 	}
 
+	@Override
+	public boolean anyMatch(Predicate<AstNode> predicate) {
+		return predicate.test(this) || returnType.anyMatch(predicate)
+				|| params.stream().anyMatch(param -> param.anyMatch(predicate))
+				|| typeParams.stream().anyMatch(param -> param.anyMatch(predicate));
+	}
+
 	@Override
 	public String name() {
 		return name;
 	}
+	
+	@Override
+	public Method withJavadoc(Javadoc javadoc) {
+		return new Method(name, returnType, params, typeParams, javadoc, isPublic, isStatic, isOverride);
+	}
 
 }
@@ -1,6 +1,7 @@
 package io.github.bensku.tsbind.ast;
 
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class Parameter implements AstNode {
 	
@@ -31,4 +32,9 @@ public class Parameter implements AstNode {
 		type.walk(visitor);
 	}
 
+	@Override
+	public boolean anyMatch(Predicate<AstNode> predicate) {
+		return predicate.test(this) || type.anyMatch(predicate);
+	}
+
 }
@@ -15,7 +15,7 @@ public class Setter extends Method {
 	
 	private final String originalName;
 
-	public Setter(String name, TypeRef type, String javadoc, boolean isPublic, boolean isStatic, boolean isOverride) {
+	public Setter(String name, TypeRef type, Javadoc javadoc, boolean isPublic, boolean isStatic, boolean isOverride) {
 		super(setterName(name), TypeRef.VOID, List.of(new Parameter(setterName(name), type, false)),
 				Collections.emptyList(), javadoc, isPublic, isStatic, isOverride);
 		this.originalName = name;
@@ -24,4 +24,9 @@ public class Setter extends Method {
 	public String originalName() {
 		return originalName;
 	}
+	
+	@Override
+	public Setter withJavadoc(Javadoc javadoc) {
+		return new Setter(originalName, params.get(0).type, javadoc, isPublic, isStatic, isOverride);
+	}
 }
@@ -1,9 +1,11 @@
 package io.github.bensku.tsbind.ast;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class TypeDefinition extends Member {
 	
@@ -41,30 +43,104 @@ public class TypeDefinition extends Member {
 	public final List<TypeRef> interfaces;
 	
 	/**
-	 * List of members (methods, fields, inner types) of this type.
+	 * Members (methods, fields, inner types) of this type. Stored as a flat
+	 * array, because there are many types. Never modified after construction.
 	 */
-	public final List<Member> members;
+	private final Member[] members;
 	
 	/**
-	 * Members that this type has.
+	 * Sorted names of members that this type has.
 	 */
-	private final Set<String> memberNames;
+	private final String[] memberNames;
+	
+	/**
+	 * Creates a modified copy of a type definition.
+	 *
+	 */
+	public static class Builder {
+		
+		private final TypeDefinition original;
+		
+		private Javadoc javadoc;
+		
+		private final List<Member> members;
+		
+		private Builder(TypeDefinition original) {
+			this.original = original;
+			this.javadoc = original.javadoc;
+			this.members = new ArrayList<>(original.members());
+		}
+		
+		public Builder javadoc(Javadoc javadoc) {
+			this.javadoc = javadoc;
+			return this;
+		}
+		
+		public Builder addMember(Member member) {
+			members.add(member);
+			return this;
+		}
+		
+		/**
+		 * Replaces all members.
+		 * @param members New members.
+		 * @return This builder.
+		 */
+		public Builder members(List<Member> members) {
+			this.members.clear();
+			this.members.addAll(members);
+			return this;
+		}
+		
+		public TypeDefinition build() {
+			return new TypeDefinition(javadoc, original.isStatic, original.ref, original.kind, original.isAbstract,
+					original.superTypes, original.interfaces, members);
+		}
+	}
 
-	public TypeDefinition(String javadoc, boolean isStatic, TypeRef ref, Kind kind, boolean isAbstract,
+	public TypeDefinition(Javadoc javadoc, boolean isStatic, TypeRef ref, Kind kind, boolean isAbstract,
 			List<TypeRef> superTypes, List<TypeRef> interfaces, List<Member> members) {
 		super(javadoc, true, isStatic); // Private types are not processed at all
 		this.ref = ref;
 		this.kind = kind;
 		this.isAbstract = isAbstract;
-		this.superTypes = superTypes;
-		this.interfaces = interfaces;
-		this.members = members;
-		this.memberNames = new HashSet<>();
-		members.stream().map(Member::name).forEach(memberNames::add);
+		// Immutable lists are compact, and empty ones are shared
+		this.superTypes = List.copyOf(superTypes);
+		this.interfaces = List.copyOf(interfaces);
+		this.members = members.toArray(new Member[0]);
+		this.memberNames = members.stream().map(Member::name).distinct().sorted().toArray(String[]::new);
+	}
+	
+	private TypeDefinition(TypeDefinition original, Javadoc javadoc) {
+		super(javadoc, true, original.isStatic);
+		this.ref = original.ref;
+		this.kind = original.kind;
+		this.isAbstract = original.isAbstract;
+		this.superTypes = original.superTypes;
+		this.interfaces = original.interfaces;
+		// Arrays are never modified, so they can be shared
+		this.members = original.members;
+		this.memberNames = original.memberNames;
+	}
+	
+	/**
+	 * Creates a builder for copies of this type.
+	 * @return A new builder.
+	 */
+	public Builder toBuilder() {
+		return new Builder(this);
+	}
+	
+	/**
+	 * Gets members of this type.
+	 * @return Unmodifiable view of members.
+	 */
+	public List<Member> members() {
+		return Collections.unmodifiableList(Arrays.asList(members));
 	}
 	
 	public boolean hasMember(String name) {
-		return memberNames.contains(name);
+		return Arrays.binarySearch(memberNames, name) >= 0;
 	}
 
 	@Override
@@ -73,17 +149,30 @@ public class TypeDefinition extends Member {
 		visitor.accept(ref);
 		superTypes.forEach(type -> type.walk(visitor));
 		interfaces.forEach(type -> type.walk(visitor));
-		members.forEach(member -> {
+		for (Member member : members) {
 			// Don't walk into inner types, they go to separate TS modules
 			if (!(member instanceof TypeDefinition)) {
 				member.walk(visitor);
 			}
-		});
+		}
+	}
+
+	@Override
+	public boolean anyMatch(Predicate<AstNode> predicate) {
+		return predicate.test(this) || predicate.test(ref)
+				|| superTypes.stream().anyMatch(type -> type.anyMatch(predicate))
+				|| interfaces.stream().anyMatch(type -> type.anyMatch(predicate))
+				|| Arrays.stream(members).anyMatch(member -> !(member instanceof TypeDefinition) && member.anyMatch(predicate));
 	}
 
 	@Override
 	public String name() {
 		return ref.name();
 	}
+	
+	@Override
+	public TypeDefinition withJavadoc(Javadoc javadoc) {
+		return new TypeDefinition(this, javadoc);
+	}
 
 }
@@ -3,6 +3,7 @@ package io.github.bensku.tsbind.ast;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
@@ -10,26 +11,43 @@ import com.github.javaparser.resolution.declarations.ResolvedTypeParameterDeclar
 import com.github.javaparser.resolution.types.ResolvedArrayType;
 import com.github.javaparser.resolution.types.ResolvedReferenceType;
 import com.github.javaparser.resolution.types.ResolvedType;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
+/**
+ * Reference to a type. Instances are hash-consed: there is only one instance
+ * of each distinct type, so most equality checks are identity checks.
+ * Hash codes are computed once, when instances are created.
+ *
+ * Canonical instances are only weakly referenced, so types that are no
+ * longer used anywhere (e.g. after their files have been written in
+ * two-pass mode) can still be garbage-collected.
+ *
+ */
 public abstract class TypeRef implements AstNode {
 	
-	public static final Simple VOID = new Simple("void");
-	public static final Simple BOOLEAN = new Simple("boolean");
-	public static final Simple BYTE = new Simple("byte");
-	public static final Simple SHORT = new Simple("short");
-	public static final Simple CHAR = new Simple("char");
-	public static final Simple INT = new Simple("int");
-	public static final Simple LONG = new Simple("long");
-	public static final Simple FLOAT = new Simple("float");
-	public static final Simple DOUBLE = new Simple("double");
+	/**
+	 * Canonical instances of all types.
+	 */
+	private static final Interner<TypeRef> TYPES = Interners.newWeakInterner();
 	
-	public static final Simple OBJECT = new Simple("java.lang.Object");
-	public static final Simple STRING = new Simple("java.lang.String");
-	public static final Simple LIST = new Simple("java.util.List");
+	public static final Simple VOID = simple("void");
+	public static final Simple BOOLEAN = simple("boolean");
+	public static final Simple BYTE = simple("byte");
+	public static final Simple SHORT = simple("short");
+	public static final Simple CHAR = simple("char");
+	public static final Simple INT = simple("int");
+	public static final Simple LONG = simple("long");
+	public static final Simple FLOAT = simple("float");
+	public static final Simple DOUBLE = simple("double");
+	
+	public static final Simple OBJECT = simple("java.lang.Object");
+	public static final Simple STRING = simple("java.lang.String");
+	public static final Simple LIST = simple("java.util.List");
 	
 	public static TypeRef fromType(ResolvedType type, boolean nullable) {
 		if (nullable) {
-			return new Nullable(fromType(type));
+			return nullable(fromType(type));
 		} else {
 			return fromType(type);
 		}
@@ -66,15 +84,15 @@ public abstract class TypeRef implements AstNode {
 				return getSimpleType(reference.getQualifiedName());
 			} else {
 				List<TypeRef> params = typeParams.stream().map(TypeRef::fromType).collect(Collectors.toList());
-				return new Parametrized(getSimpleType(reference.getQualifiedName()), params);
+				return parametrized(getSimpleType(reference.getQualifiedName()), params);
 			}
 		} else if (type.isArray()) {
 			ResolvedArrayType array = type.asArrayType();
 			TypeRef component = fromType(array.getComponentType());
-			return new Array(component, array.arrayLevel());
+			return array(component, array.arrayLevel());
 		} else if (type.isWildcard()) {
 			if (type.asWildcard().isExtends()) {
-				return new Wildcard(fromType(type.asWildcard().getBoundedType()));
+				return wildcard(fromType(type.asWildcard().getBoundedType()));
 			} else { // We can't describe ? super X in TS (AFAIK)
 				return OBJECT;
 			}
@@ -108,13 +126,55 @@ public abstract class TypeRef implements AstNode {
 		case "java.lang.String":
 			return STRING;
 		default:
-			return new Simple(name);
+			return simple(name);
 		}
 	}
 	
+	/**
+	 * Gets the canonical simple type for a name. Unlike
+	 * {@link #getSimpleType(String)}, wrapper types are not converted.
+	 * @param name Fully qualified type name.
+	 * @return Simple type reference.
+	 */
+	static Simple simple(String name) {
+		return intern(new Simple(name));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T extends TypeRef> T intern(T type) {
+		return (T) TYPES.intern(type);
+	}
+	
+	/**
+	 * Gets a reference to a type without type arguments, such as a class or a
+	 * type variable. Wrapper types are converted to primitives, like in
+	 * {@link #fromType(ResolvedType)}.
+	 * @param name Fully qualified class name or type variable name.
+	 * @return Simple type reference.
+	 */
+	public static Simple fromName(String name) {
+		return getSimpleType(name);
+	}
+	
+	public static Wildcard wildcard(TypeRef extendedType) {
+		return intern(new Wildcard(extendedType));
+	}
+	
+	public static Parametrized parametrized(TypeRef baseType, List<TypeRef> params) {
+		return intern(new Parametrized(baseType, params));
+	}
+	
+	public static Nullable nullable(TypeRef type) {
+		return intern(new Nullable(type));
+	}
+	
+	public static Array array(TypeRef component, int dimensions) {
+		return intern(new Array(component, dimensions));
+	}
+	
 	public static TypeRef fromDeclaration(ResolvedTypeParameterDeclaration decl) {
 		if (decl.hasUpperBound()) {
-			return new Parametrized(new Simple(decl.getName()),
+			return parametrized(simple(decl.getName()),
 					Collections.singletonList(fromType(decl.getUpperBound())));
 		} else if (decl.hasUpperBound()) { // We can't describe X super Y in TS (AFAIK)
 			return OBJECT;
@@ -124,7 +184,7 @@ public abstract class TypeRef implements AstNode {
 	}
 	
 	public static TypeRef enumSuperClass(TypeRef enumType) {
-		return new Parametrized(getSimpleType("java.lang.Enum"), List.of(enumType));
+		return parametrized(getSimpleType("java.lang.Enum"), List.of(enumType));
 	}
 	
 	public static TypeRef fromDeclaration(String typeName, ResolvedReferenceTypeDeclaration decl) {
@@ -133,7 +193,7 @@ public abstract class TypeRef implements AstNode {
 			return getSimpleType(decl.getQualifiedName());
 		} else {
 			List<TypeRef> params = typeParams.stream().map(TypeRef::fromDeclaration).collect(Collectors.toList());
-			return new Parametrized(getSimpleType(decl.getQualifiedName()), params);
+			return parametrized(getSimpleType(decl.getQualifiedName()), params);
 		}
 	}
 		
@@ -168,9 +228,16 @@ public abstract class TypeRef implements AstNode {
 			visitor.accept(this);
 		}
 
+		@Override
+		public boolean anyMatch(Predicate<AstNode> predicate) {
+			return predicate.test(this);
+		}
+
 		@Override
 		public boolean equals(Object obj) {
-			if (!(obj instanceof Simple)) {
+			if (obj == this) {
+				return true;
+			} else if (!(obj instanceof Simple)) {
 				return false;
 			}
 			return ((Simple) obj).name.equals(this.name);
@@ -178,7 +245,7 @@ public abstract class TypeRef implements AstNode {
 
 		@Override
 		public int hashCode() {
-			return name.hashCode();
+			return name.hashCode(); // Cached by String
 		}
 	}
 	
@@ -188,9 +255,12 @@ public abstract class TypeRef implements AstNode {
 		 * Type that this generic parameter must extend.
 		 */
 		private final TypeRef extendedType;
+		
+		private final transient int hash;
 
 		private Wildcard(TypeRef extendedType) {
 			this.extendedType = extendedType;
+			this.hash = extendedType.hashCode();
 		}
 
 		@Override
@@ -218,17 +288,25 @@ public abstract class TypeRef implements AstNode {
 			extendedType.walk(visitor);
 		}
 
+		@Override
+		public boolean anyMatch(Predicate<AstNode> predicate) {
+			return predicate.test(this) || extendedType.anyMatch(predicate);
+		}
+
 		@Override
 		public boolean equals(Object obj) {
-			if (!(obj instanceof Wildcard)) {
+			if (obj == this) {
+				return true;
+			} else if (!(obj instanceof Wildcard)) {
 				return false;
 			}
-			return ((Wildcard) obj).extendedType.equals(this.extendedType);
+			Wildcard o = (Wildcard) obj;
+			return o.hash == this.hash && o.extendedType.equals(this.extendedType);
 		}
 
 		@Override
 		public int hashCode() {
-			return extendedType.hashCode();
+			return hash;
 		}
 		
 	}
@@ -244,10 +322,13 @@ public abstract class TypeRef implements AstNode {
 		 * Type parameters.
 		 */
 		private final List<TypeRef> params;
+		
+		private final transient int hash;
 
 		private Parametrized(TypeRef baseType, List<TypeRef> params) {
 			this.baseType = baseType;
-			this.params = params;
+			this.params = List.copyOf(params); // Must not change, we're interned
+			this.hash = baseType.hashCode() + 31 * this.params.hashCode();
 		}
 
 		@Override
@@ -276,18 +357,26 @@ public abstract class TypeRef implements AstNode {
 			params.forEach(param -> param.walk(visitor));
 		}
 
+		@Override
+		public boolean anyMatch(Predicate<AstNode> predicate) {
+			return predicate.test(this) || baseType.anyMatch(predicate)
+					|| params.stream().anyMatch(param -> param.anyMatch(predicate));
+		}
+
 		@Override
 		public boolean equals(Object obj) {
-			if (!(obj instanceof Parametrized)) {
+			if (obj == this) {
+				return true;
+			} else if (!(obj instanceof Parametrized)) {
 				return false;
 			}
 			Parametrized o = (Parametrized) obj;
-			return o.baseType.equals(this.baseType) && o.params.equals(this.params);
+			return o.hash == this.hash && o.baseType.equals(this.baseType) && o.params.equals(this.params);
 		}
 
 		@Override
 		public int hashCode() {
-			return baseType.hashCode() + 31 * params.hashCode();
+			return hash;
 		}
 	}
 	
@@ -302,10 +391,13 @@ public abstract class TypeRef implements AstNode {
 		 * Array dimensions.
 		 */
 		private final int dimensions;
+		
+		private final transient int hash;
 
 		private Array(TypeRef component, int dimensions) {
 			this.component = component;
 			this.dimensions = dimensions;
+			this.hash = component.hashCode() + 31 * dimensions;
 		}
 
 		@Override
@@ -323,24 +415,35 @@ public abstract class TypeRef implements AstNode {
 			return dimensions;
 		}
 		
+		public TypeRef componentType() {
+			return component;
+		}
+		
 		@Override
 		public void walk(Consumer<AstNode> visitor) {
 			visitor.accept(this);
 			component.walk(visitor);
 		}
 
+		@Override
+		public boolean anyMatch(Predicate<AstNode> predicate) {
+			return predicate.test(this) || component.anyMatch(predicate);
+		}
+
 		@Override
 		public boolean equals(Object obj) {
-			if (!(obj instanceof Array)) {
+			if (obj == this) {
+				return true;
+			} else if (!(obj instanceof Array)) {
 				return false;
 			}
 			Array o = (Array) obj;
-			return o.component.equals(this.component) && o.dimensions == this.dimensions;
+			return o.hash == this.hash && o.component.equals(this.component) && o.dimensions == this.dimensions;
 		}
 
 		@Override
 		public int hashCode() {
-			return component.hashCode() + 31 * dimensions;
+			return hash;
 		}
 	}
 	
@@ -351,8 +454,11 @@ public abstract class TypeRef implements AstNode {
 		 */
 		private final TypeRef type;
 		
+		private final transient int hash;
+		
 		private Nullable(TypeRef type) {
 			this.type = type;
+			this.hash = type.hashCode();
 		}
 		
 		/**
@@ -383,17 +489,25 @@ public abstract class TypeRef implements AstNode {
 			type.walk(visitor);
 		}
 
+		@Override
+		public boolean anyMatch(Predicate<AstNode> predicate) {
+			return type.anyMatch(predicate);
+		}
+
 		@Override
 		public boolean equals(Object obj) {
-			if (!(obj instanceof Nullable)) {
+			if (obj == this) {
+				return true;
+			} else if (!(obj instanceof Nullable)) {
 				return false;
 			}
-			return ((Nullable) obj).type.equals(this.type);
+			Nullable o = (Nullable) obj;
+			return o.hash == this.hash && o.type.equals(this.type);
 		}
 
 		@Override
 		public int hashCode() {
-			return type.hashCode();
+			return hash;
 		}
 		
 	}
@@ -410,7 +524,7 @@ public abstract class TypeRef implements AstNode {
 	public abstract int arrayDimensions();
 	
 	public Array makeArray(int dimensions) {
-		return new Array(this, dimensions);
+		return array(this, dimensions);
 	}
 	
 	@Override
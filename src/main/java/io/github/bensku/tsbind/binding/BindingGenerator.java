@@ -1,7 +1,9 @@
 package io.github.bensku.tsbind.binding;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -36,35 +38,67 @@ public class BindingGenerator implements AstConsumer<String> {
 	 */
 	private final boolean buildIndex;
 	
+	/**
+	 * Names of declaration files generated so far.
+	 */
+	private final Set<String> declarations;
+	
 	public BindingGenerator(boolean buildIndex) {
 		this.buildIndex = buildIndex;
+		this.declarations = new HashSet<>();
 	}
 	
 	@Override
 	public Stream<Result<String>> consume(Map<String, TypeDefinition> types) {
+		// Everything is one part; finish() is called only after parts have been grouped
+		Stream<Result<String>> declarations = consumePart(types, types);
+		return Stream.concat(declarations, finish());
+	}
+	
+	@Override
+	public String part(TypeDefinition type) {
+		if (EXCLUDED_TYPES.contains(type.ref)) {
+			return null; // Not emitted, and its name may not even have a package
+		}
+		// Name of declaration file; inner types go to same file with their outer types
+		return getBasePkg(getModuleName(type.ref)).replace('.', '_');
+	}
+	
+	@Override
+	public Stream<Result<String>> consumePart(Map<String, TypeDefinition> types, Map<String, TypeDefinition> typeTable) {
 		Map<String, TsModule> modules = new HashMap<>();
 		
 		types.values().forEach(type -> addType(modules, type));
 		
 		// Put modules in declarations based on their base packages (tld.domain)
-		Map<String, StringBuilder> outputs = new HashMap<>();
+		Map<String, List<TsModule>> outputs = new HashMap<>();
 		for (TsModule module : modules.values()) {
 			String basePkg = getBasePkg(module.name()).replace('.', '_');
-			StringBuilder out = outputs.computeIfAbsent(basePkg, key -> new StringBuilder());
-			module.write(types, out);
+			outputs.computeIfAbsent(basePkg, key -> new ArrayList<>()).add(module);
 		}
+		declarations.addAll(outputs.keySet());
 		
+		// Declarations are generated lazily, so that caller can write them while next one is generated
+		return outputs.entrySet().stream().map(entry -> {
+			StringBuilder out = new StringBuilder();
+			for (TsModule module : entry.getValue()) {
+				module.write(typeTable, out);
+			}
+			return new Result<>(entry.getKey() + ".d.ts", out.toString());
+		});
+	}
+	
+	@Override
+	public Stream<Result<String>> finish() {
 		// If requested, generate index.d.ts that references other files
 		if (buildIndex) {
 			StringBuilder index = new StringBuilder("// auto-generated references to packages\n");
-			for (String pkg : outputs.keySet()) {
+			for (String pkg : declarations) {
 				index.append("/// <reference path='").append(pkg).append(".d.ts").append("' />\n");
 			}
-			outputs.put("index", index);
+			return Stream.of(new Result<>("index.d.ts", index.toString()));
 		}
-		
-		return outputs.entrySet().stream().map(entry
-				-> new Result<>(entry.getKey() + ".d.ts", entry.getValue().toString()));
+		return Stream.empty();
 	}
 	
 	private String getBasePkg(String name) {
@@ -89,7 +123,7 @@ public class BindingGenerator implements AstConsumer<String> {
 		
 		// Fake inner classes with TS modules
 		// Nested types in TS are quite different from Java, so we can't use them
-		type.members.stream().filter(member -> (member instanceof TypeDefinition))
+		type.members().stream().filter(member -> (member instanceof TypeDefinition))
 				.forEach(innerType -> addType(modules, (TypeDefinition) innerType));
 	}
 	
@@ -1,6 +1,8 @@
 package io.github.bensku.tsbind.binding;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -46,27 +48,37 @@ public class EarlyTypeTransformer {
 	/**
 	 * TypeScript removes inherited overloads unless they're re-specified.
 	 * As such, we copy them to classes that should inherit them.
+	 * @param type Type definition.
+	 * @return Type with missing overloads, or the given type if it was not
+	 * missing any.
 	 */
-	public void addMissingOverloads(TypeDefinition type) {
+	public TypeDefinition addMissingOverloads(TypeDefinition type) {
 		// Figure out what methods we already have
 		Set<MethodId> methods = new HashSet<>();
-		for (Member member : type.members) {
+		for (Member member : type.members()) {
 			if (member instanceof Method) {
 				methods.add(new MethodId((Method) member));
 			}
 		}
 		
 		// Visit supertypes and interfaces to see what we're missing
+		List<Member> missing = new ArrayList<>();
 		visitSupertypes(type, parent -> {
-			for (Member member : parent.members) {
+			for (Member member : parent.members()) {
 				if (member instanceof Method && type.hasMember(member.name())) {
 					// We have a member with same name
 					// If it has different signature, we need to copy the missing overload
 					if (!methods.contains(new MethodId((Method) member))) {
-						type.members.add(member);
+						missing.add(member);
 					}
 				}
 			}
 		});
+		if (missing.isEmpty()) {
+			return type; // Nothing to copy
+		}
+		TypeDefinition.Builder builder = type.toBuilder();
+		missing.forEach(builder::addMember);
+		return builder.build();
 	}
 }
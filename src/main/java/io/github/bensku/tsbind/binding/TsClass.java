@@ -12,6 +12,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import io.github.bensku.tsbind.ast.Getter;
+import io.github.bensku.tsbind.ast.Javadoc;
 import io.github.bensku.tsbind.ast.Member;
 import io.github.bensku.tsbind.ast.Method;
 import io.github.bensku.tsbind.ast.Setter;
@@ -40,7 +41,7 @@ public class TsClass implements TsGenerator<TypeDefinition> {
 		
 		public Members(TypeDefinition type, TsEmitter emitter) {
 			this.type = type;
-			this.members = type.members.stream()
+			this.members = type.members().stream()
 					.filter(member -> member.isPublic)
 					.collect(Collectors.toList());
 			this.emitter = emitter;
@@ -93,7 +94,7 @@ public class TsClass implements TsGenerator<TypeDefinition> {
 			for (TypeRef parent : type.interfaces) {
 				Optional<TypeDefinition> result = resolveOverrideSource(parent, method);
 				if (result.isPresent()) {
-					for (Member m : result.get().members) {
+					for (Member m : result.get().members()) {
 						if (m.getClass().equals(method.getClass()) && m.name().equals(method.name())) {
 							return Optional.of(m); // Same name, same type -> found it!
 						}
@@ -110,13 +111,13 @@ public class TsClass implements TsGenerator<TypeDefinition> {
 		 * its Javadoc.
 		 */
 		private boolean hasValuableJavadoc(Member member) {
-			Optional<String> javadoc = member.javadoc;
-			if (javadoc.isEmpty()) {
+			Javadoc doc = member.javadoc;
+			if (doc == null) {
 				return false;
 			} else {
 				// Short Javadoc with @inheritDoc is unlikely to contain anything of value
-				String doc = javadoc.get();
-				return doc.length() > 50 || !doc.contains("{@inheritDoc}");
+				// Only short ones need to be loaded to check that
+				return doc.length() > 50 || !doc.text().contains("{@inheritDoc}");
 			}
 		}
 		
@@ -126,11 +127,14 @@ public class TsClass implements TsGenerator<TypeDefinition> {
 		 */
 		public void fixInheritDoc() {
 			// TODO Javadoc with overrides of overrides
-			for (Member member : members) {
+			for (int i = 0; i < members.size(); i++) {
+				Member member = members.get(i);
 				if (!member.isStatic && member instanceof Method && !hasValuableJavadoc(member)) {
-					resolveInterfaceOverride((Method) member).ifPresent(override -> {
-						override.javadoc.ifPresent(doc -> member.javadoc = Optional.of(doc));
-					});
+					Member override = resolveInterfaceOverride((Method) member).orElse(null);
+					if (override != null && override.javadoc != null) {
+						// AST is shared, so replace the member with a copy instead of changing it
+						members.set(i, member.withJavadoc(override.javadoc));
+					}
 				}
 			}
 		}
@@ -165,7 +169,7 @@ public class TsClass implements TsGenerator<TypeDefinition> {
 			if (member instanceof Getter || member instanceof Setter) {
 				Method original = (Method) member;
 				Method method = new Method(original.originalName(), original.returnType, original.params,
-						original.typeParams, original.javadoc.orElse(null), original.isPublic, original.isStatic, original.isOverride);
+						original.typeParams, original.javadoc, original.isPublic, original.isStatic, original.isOverride);
 				members.set(index, method);
 			} // other kinds of conflicts we don't touch
 		}
@@ -211,13 +215,13 @@ public class TsClass implements TsGenerator<TypeDefinition> {
 	
 	@Override
 	public void emit(TypeDefinition node, TsEmitter out) {
-		node.javadoc.ifPresent(out::javadoc);
+		out.javadoc(node.javadoc);
 		// Class declaration, including superclass and interfaces
 		
 		// Transform functional interfaces into function signatures
 		// For now, only do this if there are no (static) methods or fields
 		if (node.kind == TypeDefinition.Kind.FUNCTIONAL_INTERFACE) {
-			Member member = node.members.get(0);
+			Member member = node.members().get(0);
 			if (!member.isStatic && member instanceof Method) {
 				out.print("export type ");
 				emitName(node.ref.simpleName(), node.ref, out);
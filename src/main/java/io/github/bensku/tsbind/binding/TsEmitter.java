@@ -11,6 +11,7 @@ import io.github.bensku.tsbind.ast.AstNode;
 import io.github.bensku.tsbind.ast.Constructor;
 import io.github.bensku.tsbind.ast.Field;
 import io.github.bensku.tsbind.ast.Getter;
+import io.github.bensku.tsbind.ast.Javadoc;
 import io.github.bensku.tsbind.ast.Method;
 import io.github.bensku.tsbind.ast.Parameter;
 import io.github.bensku.tsbind.ast.Setter;
@@ -211,8 +212,12 @@ public class TsEmitter {
 		indent().print(" ").println(line);
 	}
 	
-	public TsEmitter javadoc(String doc) {
-		doc = processJavadoc(doc);
+	public TsEmitter javadoc(Javadoc javadoc) {
+		if (javadoc == null) {
+			return this; // Nothing to document
+		}
+		// Javadoc might not be in memory, so load it only now that it is needed
+		String doc = processJavadoc(javadoc.text());
 		indent().println("/**");
 		doc.lines().map(String::stripLeading).filter(line -> !line.isEmpty()).forEach(this::javadocContent);
 		indent().println("*/");
@@ -0,0 +1,645 @@
+package io.github.bensku.tsbind.classfile;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parts of a compiled class file that are needed to generate type
+ * definitions. Method bodies are not decoded, apart from their local
+ * variable tables (which may contain parameter names).
+ *
+ */
+public class ClassFile {
+
+	public static final int ACC_PUBLIC = 0x0001;
+	public static final int ACC_PRIVATE = 0x0002;
+	public static final int ACC_PROTECTED = 0x0004;
+	public static final int ACC_STATIC = 0x0008;
+	public static final int ACC_FINAL = 0x0010;
+	public static final int ACC_BRIDGE = 0x0040;
+	public static final int ACC_VARARGS = 0x0080;
+	public static final int ACC_INTERFACE = 0x0200;
+	public static final int ACC_ABSTRACT = 0x0400;
+	public static final int ACC_SYNTHETIC = 0x1000;
+	public static final int ACC_ANNOTATION = 0x2000;
+	public static final int ACC_ENUM = 0x4000;
+	public static final int ACC_MODULE = 0x8000;
+
+	private static final int MAGIC = 0xcafebabe;
+
+	/**
+	 * Entry of InnerClasses attribute.
+	 *
+	 */
+	public static class InnerClass {
+
+		/**
+		 * Internal name of the nested class.
+		 */
+		public final String name;
+
+		/**
+		 * Internal name of the enclosing class, or null if the class is
+		 * local or anonymous.
+		 */
+		public final String outerName;
+
+		/**
+		 * Simple name of the nested class, or null if it is anonymous.
+		 */
+		public final String simpleName;
+
+		/**
+		 * Access flags as declared in source code.
+		 */
+		public final int accessFlags;
+
+		InnerClass(String name, String outerName, String simpleName, int accessFlags) {
+			this.name = name;
+			this.outerName = outerName;
+			this.simpleName = simpleName;
+			this.accessFlags = accessFlags;
+		}
+	}
+
+	/**
+	 * A field or a method.
+	 *
+	 */
+	public static class MemberInfo {
+
+		public final int accessFlags;
+
+		public final String name;
+
+		/**
+		 * Erased type descriptor.
+		 */
+		public final String descriptor;
+
+		/**
+		 * Generic signature, or null if the member is not generic.
+		 */
+		public final String signature;
+
+		/**
+		 * Descriptors of annotations on the member, including type
+		 * annotations on its (return) type.
+		 */
+		public final Set<String> annotations;
+
+		MemberInfo(int accessFlags, String name, String descriptor, String signature, Set<String> annotations) {
+			this.accessFlags = accessFlags;
+			this.name = name;
+			this.descriptor = descriptor;
+			this.signature = signature;
+			this.annotations = annotations;
+		}
+
+		public boolean is(int flag) {
+			return (accessFlags & flag) != 0;
+		}
+	}
+
+	public static class MethodInfo extends MemberInfo {
+
+		/**
+		 * Parameter names from MethodParameters or LocalVariableTable
+		 * attribute, or null if they're not available. There is one name for
+		 * each parameter in {@link #descriptor}.
+		 */
+		public final String[] paramNames;
+
+		/**
+		 * Descriptors of annotations on parameters, including type
+		 * annotations on their types. Depending on compiler, synthetic
+		 * parameters (e.g. enclosing instance of inner class) may or may not
+		 * have entries. Trailing parameters without annotations may not have
+		 * entries either.
+		 */
+		public final List<Set<String>> paramAnnotations;
+
+		MethodInfo(int accessFlags, String name, String descriptor, String signature, Set<String> annotations,
+				String[] paramNames, List<Set<String>> paramAnnotations) {
+			super(accessFlags, name, descriptor, signature, annotations);
+			this.paramNames = paramNames;
+			this.paramAnnotations = paramAnnotations;
+		}
+	}
+
+	/**
+	 * Access flags of the class file. Use {@link #accessFlags()} instead
+	 * for nested classes.
+	 */
+	private final int fileAccessFlags;
+
+	/**
+	 * Internal name of this class, e.g. {@code java/util/Map$Entry}.
+	 */
+	public final String name;
+
+	/**
+	 * Internal name of the superclass, or null for java.lang.Object
+	 * and modules.
+	 */
+	public final String superName;
+
+	/**
+	 * Internal names of implemented (or extended, for interfaces) interfaces.
+	 */
+	public final List<String> interfaces;
+
+	/**
+	 * Generic signature, or null if the class is not generic.
+	 */
+	public final String signature;
+
+	/**
+	 * Descriptors of annotations on this class.
+	 */
+	public final Set<String> annotations;
+
+	/**
+	 * All nested classes this class refers to, including its own entry
+	 * if it is nested.
+	 */
+	public final List<InnerClass> innerClasses;
+
+	public final List<MemberInfo> fields;
+
+	public final List<MethodInfo> methods;
+
+	/**
+	 * Source names of nested classes by their internal names.
+	 */
+	private final Map<String, String> nestedNames;
+
+	/**
+	 * Our own entry in {@link #innerClasses}, or null if this is a top-level
+	 * class.
+	 */
+	private final InnerClass self;
+
+	// Constant pool
+	private String[] utf8;
+	private int[] classNames;
+
+	public ClassFile(byte[] data) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("not a class file");
+		}
+		in.readInt(); // Minor and major version
+		readConstantPool(in);
+
+		this.fileAccessFlags = in.readUnsignedShort();
+		this.name = className(in.readUnsignedShort());
+		this.superName = className(in.readUnsignedShort());
+		int interfaceCount = in.readUnsignedShort();
+		List<String> interfaces = new ArrayList<>(interfaceCount);
+		for (int i = 0; i < interfaceCount; i++) {
+			interfaces.add(className(in.readUnsignedShort()));
+		}
+		this.interfaces = interfaces;
+
+		int fieldCount = in.readUnsignedShort();
+		List<MemberInfo> fields = new ArrayList<>(fieldCount);
+		for (int i = 0; i < fieldCount; i++) {
+			fields.add(readField(in));
+		}
+		this.fields = fields;
+		int methodCount = in.readUnsignedShort();
+		List<MethodInfo> methods = new ArrayList<>(methodCount);
+		for (int i = 0; i < methodCount; i++) {
+			methods.add(readMethod(in));
+		}
+		this.methods = methods;
+
+		// Class attributes
+		String signature = null;
+		Set<String> annotations = new HashSet<>();
+		List<InnerClass> innerClasses = new ArrayList<>();
+		int attributeCount = in.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+			String attribute = utf8[in.readUnsignedShort()];
+			int length = in.readInt();
+			switch (attribute) {
+			case "Signature":
+				signature = utf8[in.readUnsignedShort()];
+				break;
+			case "RuntimeVisibleAnnotations":
+			case "RuntimeInvisibleAnnotations":
+				readAnnotations(in, annotations);
+				break;
+			case "InnerClasses":
+				int count = in.readUnsignedShort();
+				for (int j = 0; j < count; j++) {
+					String inner = className(in.readUnsignedShort());
+					String outer = className(in.readUnsignedShort());
+					int nameIndex = in.readUnsignedShort();
+					int flags = in.readUnsignedShort();
+					innerClasses.add(new InnerClass(inner, outer, nameIndex != 0 ? utf8[nameIndex] : null, flags));
+				}
+				break;
+			default:
+				in.skipBytes(length);
+			}
+		}
+		this.signature = signature;
+		this.annotations = annotations;
+		this.innerClasses = innerClasses;
+
+		// Constant pool is no longer needed
+		this.utf8 = null;
+		this.classNames = null;
+
+		this.nestedNames = new HashMap<>(); // Filled lazily
+		InnerClass self = null;
+		for (InnerClass inner : innerClasses) {
+			if (inner.name.equals(name)) {
+				self = inner;
+			}
+		}
+		this.self = self;
+	}
+
+	private void readConstantPool(DataInputStream in) throws IOException {
+		int count = in.readUnsignedShort();
+		utf8 = new String[count];
+		classNames = new int[count];
+		for (int i = 1; i < count; i++) {
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+			case 1: // Utf8
+				utf8[i] = in.readUTF(); // Class files use same modified UTF-8 as DataInput
+				break;
+			case 7: // Class
+				classNames[i] = in.readUnsignedShort();
+				break;
+			case 8: // String
+			case 16: // MethodType
+			case 19: // Module
+			case 20: // Package
+				in.skipBytes(2);
+				break;
+			case 15: // MethodHandle
+				in.skipBytes(3);
+				break;
+			case 3: // Integer
+			case 4: // Float
+			case 9: // Fieldref
+			case 10: // Methodref
+			case 11: // InterfaceMethodref
+			case 12: // NameAndType
+			case 17: // Dynamic
+			case 18: // InvokeDynamic
+				in.skipBytes(4);
+				break;
+			case 5: // Long
+			case 6: // Double
+				in.skipBytes(8);
+				i++; // Takes two entries
+				break;
+			default:
+				throw new IOException("unknown constant pool tag " + tag);
+			}
+		}
+	}
+
+	private String className(int index) {
+		return index != 0 ? utf8[classNames[index]] : null;
+	}
+
+	private MemberInfo readField(DataInputStream in) throws IOException {
+		int flags = in.readUnsignedShort();
+		String name = utf8[in.readUnsignedShort()];
+		String descriptor = utf8[in.readUnsignedShort()];
+		String signature = null;
+		Set<String> annotations = new HashSet<>();
+		int attributeCount = in.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+			String attribute = utf8[in.readUnsignedShort()];
+			int length = in.readInt();
+			switch (attribute) {
+			case "Signature":
+				signature = utf8[in.readUnsignedShort()];
+				break;
+			case "RuntimeVisibleAnnotations":
+			case "RuntimeInvisibleAnnotations":
+				readAnnotations(in, annotations);
+				break;
+			case "RuntimeVisibleTypeAnnotations":
+			case "RuntimeInvisibleTypeAnnotations":
+				readTypeAnnotations(in, annotations, null);
+				break;
+			default:
+				in.skipBytes(length);
+			}
+		}
+		return new MemberInfo(flags, name, descriptor, signature, annotations);
+	}
+
+	private MethodInfo readMethod(DataInputStream in) throws IOException {
+		int flags = in.readUnsignedShort();
+		String name = utf8[in.readUnsignedShort()];
+		String descriptor = utf8[in.readUnsignedShort()];
+		String signature = null;
+		Set<String> annotations = new HashSet<>();
+		List<Set<String>> paramAnnotations = new ArrayList<>();
+		String[] paramNames = null;
+		String[] localNames = null;
+		int attributeCount = in.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+			String attribute = utf8[in.readUnsignedShort()];
+			int length = in.readInt();
+			switch (attribute) {
+			case "Signature":
+				signature = utf8[in.readUnsignedShort()];
+				break;
+			case "RuntimeVisibleAnnotations":
+			case "RuntimeInvisibleAnnotations":
+				readAnnotations(in, annotations);
+				break;
+			case "RuntimeVisibleParameterAnnotations":
+			case "RuntimeInvisibleParameterAnnotations":
+				int paramCount = in.readUnsignedByte();
+				if (paramCount > 0) {
+					paramAnnotations(paramAnnotations, paramCount - 1); // Entry for every parameter
+				}
+				for (int j = 0; j < paramCount; j++) {
+					readAnnotations(in, paramAnnotations(paramAnnotations, j));
+				}
+				break;
+			case "RuntimeVisibleTypeAnnotations":
+			case "RuntimeInvisibleTypeAnnotations":
+				readTypeAnnotations(in, annotations, paramAnnotations);
+				break;
+			case "MethodParameters":
+				paramNames = new String[in.readUnsignedByte()];
+				for (int j = 0; j < paramNames.length; j++) {
+					int nameIndex = in.readUnsignedShort();
+					in.skipBytes(2); // Flags
+					paramNames[j] = nameIndex != 0 ? utf8[nameIndex] : null;
+				}
+				break;
+			case "Code":
+				localNames = readLocalNames(in, (flags & ACC_STATIC) != 0, descriptor);
+				break;
+			default:
+				in.skipBytes(length);
+			}
+		}
+		if (paramNames == null || Arrays.asList(paramNames).contains(null)) {
+			paramNames = localNames; // Prefer MethodParameters, if it is complete
+		}
+		return new MethodInfo(flags, name, descriptor, signature, annotations, paramNames, paramAnnotations);
+	}
+
+	private static Set<String> paramAnnotations(List<Set<String>> params, int index) {
+		while (params.size() <= index) {
+			params.add(new HashSet<>());
+		}
+		return params.get(index);
+	}
+
+	/**
+	 * Reads parameter names from LocalVariableTable inside Code attribute.
+	 * @param in Input, at start of Code attribute content.
+	 * @param isStatic If the method is static, i.e. has no 'this'.
+	 * @param descriptor Method descriptor.
+	 * @return Parameter names, or null if they're not available.
+	 * @throws IOException When reading fails.
+	 */
+	private String[] readLocalNames(DataInputStream in, boolean isStatic, String descriptor) throws IOException {
+		in.skipBytes(4); // max_stack, max_locals
+		in.skipBytes(in.readInt()); // Bytecode
+		in.skipBytes(in.readUnsignedShort() * 8); // Exception table
+
+		// Map local variable slots to parameter indices
+		List<Integer> slots = new ArrayList<>();
+		int slot = isStatic ? 0 : 1;
+		for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+			slots.add(slot);
+			char c = descriptor.charAt(i);
+			slot += c == 'J' || c == 'D' ? 2 : 1;
+			while (c == '[') {
+				c = descriptor.charAt(++i);
+			}
+			if (c == 'L') {
+				i = descriptor.indexOf(';', i);
+			}
+		}
+
+		String[] names = null;
+		int attributeCount = in.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+			String attribute = utf8[in.readUnsignedShort()];
+			int length = in.readInt();
+			if (!attribute.equals("LocalVariableTable")) {
+				in.skipBytes(length);
+				continue;
+			}
+			names = new String[slots.size()];
+			int count = in.readUnsignedShort();
+			for (int j = 0; j < count; j++) {
+				int startPc = in.readUnsignedShort();
+				in.skipBytes(2); // length
+				String name = utf8[in.readUnsignedShort()];
+				in.skipBytes(2); // descriptor
+				int index = slots.indexOf(in.readUnsignedShort());
+				if (startPc == 0 && index != -1) {
+					names[index] = name;
+				}
+			}
+		}
+		if (names != null && Arrays.asList(names).contains(null)) {
+			return null; // Incomplete, perhaps some parameters are unused
+		}
+		return names;
+	}
+
+	private void readAnnotations(DataInputStream in, Set<String> types) throws IOException {
+		int count = in.readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			readAnnotation(in, types);
+		}
+	}
+
+	private void readAnnotation(DataInputStream in, Set<String> types) throws IOException {
+		String type = utf8[in.readUnsignedShort()];
+		if (types != null) {
+			types.add(type);
+		}
+		int pairs = in.readUnsignedShort();
+		for (int i = 0; i < pairs; i++) {
+			in.skipBytes(2); // Element name
+			skipElementValue(in);
+		}
+	}
+
+	private void skipElementValue(DataInputStream in) throws IOException {
+		int tag = in.readUnsignedByte();
+		switch (tag) {
+		case 'e': // Enum constant
+			in.skipBytes(4);
+			break;
+		case '@':
+			readAnnotation(in, null);
+			break;
+		case '[':
+			int count = in.readUnsignedShort();
+			for (int i = 0; i < count; i++) {
+				skipElementValue(in);
+			}
+			break;
+		default: // Constants and class literals
+			in.skipBytes(2);
+		}
+	}
+
+	/**
+	 * Reads type annotations that are on the type of a field, method return
+	 * or method parameter as a whole (e.g. not on array components).
+	 * @param in Input.
+	 * @param types Annotations of field type or return type.
+	 * @param paramTypes Annotations of parameter types, or null for fields.
+	 * @throws IOException When reading fails.
+	 */
+	private void readTypeAnnotations(DataInputStream in, Set<String> types, List<Set<String>> paramTypes)
+			throws IOException {
+		int count = in.readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			int target = in.readUnsignedByte();
+			Set<String> targetTypes = null;
+			switch (target) {
+			case 0x13: // Field
+			case 0x14: // Method return type
+				targetTypes = types;
+				break;
+			case 0x16: // Method parameter
+				int index = in.readUnsignedByte();
+				targetTypes = paramTypes != null ? paramAnnotations(paramTypes, index) : null;
+				break;
+			case 0x00: // Type parameters
+			case 0x01:
+				in.skipBytes(1);
+				break;
+			case 0x10: // Supertypes
+			case 0x11: // Type parameter bounds
+			case 0x12:
+			case 0x17: // Throws
+			case 0x42: // Catch
+			case 0x43: // Expressions
+			case 0x44:
+			case 0x45:
+			case 0x46:
+				in.skipBytes(2);
+				break;
+			case 0x15: // Receiver
+				break;
+			case 0x40: // Local variables
+			case 0x41:
+				in.skipBytes(in.readUnsignedShort() * 6);
+				break;
+			case 0x47: // Casts and type arguments
+			case 0x48:
+			case 0x49:
+			case 0x4a:
+			case 0x4b:
+				in.skipBytes(3);
+				break;
+			default:
+				throw new IOException("unknown type annotation target " + target);
+			}
+			int pathLength = in.readUnsignedByte();
+			in.skipBytes(pathLength * 2);
+			// Only annotations on outermost type apply to the member
+			readAnnotation(in, pathLength == 0 ? targetTypes : null);
+		}
+	}
+
+	/**
+	 * Gets access flags of this class as they were declared in source code.
+	 * These are different from class file flags for nested classes.
+	 * @return Access flags.
+	 */
+	public int accessFlags() {
+		return self != null ? self.accessFlags : fileAccessFlags;
+	}
+
+	public boolean is(int flag) {
+		return (accessFlags() & flag) != 0;
+	}
+
+	/**
+	 * Checks if this is a nested (including local or anonymous) class.
+	 * @return Whether this class is nested.
+	 */
+	public boolean isNested() {
+		return self != null;
+	}
+
+	/**
+	 * Checks if this is an inner class, i.e. has reference to enclosing
+	 * instance.
+	 * @return Whether this is an inner class.
+	 */
+	public boolean isInner() {
+		return self != null && self.outerName != null && (self.accessFlags & ACC_STATIC) == 0
+				&& (fileAccessFlags & ACC_INTERFACE) == 0;
+	}
+
+	/**
+	 * Gets the source name of a class this class refers to.
+	 * @param internalName Internal name, e.g. {@code java/util/Map$Entry}.
+	 * @return Fully qualified source name, e.g. {@code java.util.Map.Entry}.
+	 */
+	public String sourceName(String internalName) {
+		synchronized (nestedNames) {
+			String name = nestedNames.get(internalName);
+			if (name != null) {
+				return name;
+			}
+			name = internalName.replace('/', '.'); // Not nested or not known to be
+			for (InnerClass inner : innerClasses) {
+				if (inner.name.equals(internalName) && inner.outerName != null && inner.simpleName != null) {
+					name = sourceName(inner.outerName) + "." + inner.simpleName;
+					break;
+				}
+			}
+			nestedNames.put(internalName, name);
+			return name;
+		}
+	}
+
+	/**
+	 * Gets fully qualified source name of this class.
+	 * @return Source name.
+	 */
+	public String sourceName() {
+		return sourceName(name);
+	}
+
+	/**
+	 * Gets nested classes that are declared directly in this class.
+	 * @return Member classes.
+	 */
+	public List<InnerClass> memberClasses() {
+		List<InnerClass> members = new ArrayList<>();
+		for (InnerClass inner : innerClasses) {
+			if (name.equals(inner.outerName) && inner.simpleName != null) {
+				members.add(inner);
+			}
+		}
+		return Collections.unmodifiableList(members);
+	}
+}
@@ -0,0 +1,320 @@
+package io.github.bensku.tsbind.classfile;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import io.github.bensku.tsbind.AstGenerator;
+import io.github.bensku.tsbind.MethodNameCache;
+import io.github.bensku.tsbind.TypeBlacklist;
+import io.github.bensku.tsbind.ast.Constructor;
+import io.github.bensku.tsbind.ast.Field;
+import io.github.bensku.tsbind.ast.Getter;
+import io.github.bensku.tsbind.ast.Member;
+import io.github.bensku.tsbind.ast.Method;
+import io.github.bensku.tsbind.ast.Parameter;
+import io.github.bensku.tsbind.ast.Setter;
+import io.github.bensku.tsbind.ast.TypeDefinition;
+import io.github.bensku.tsbind.ast.TypeRef;
+
+/**
+ * Reads compiled class files to produce same AST as {@link AstGenerator}
+ * would produce from their sources. Class files contain no documentation,
+ * so Javadoc is always missing.
+ *
+ * This is thread-safe.
+ *
+ */
+public class ClassFileGenerator {
+
+	/**
+	 * Where supertypes and nested classes are looked up from.
+	 */
+	private final ClassPath classPath;
+
+	/**
+	 * Blacklisted types. Types that match it are never emitted.
+	 * All {@link Member members} that contain them are also ignored.
+	 */
+	private final TypeBlacklist blacklist;
+
+	/**
+	 * Method names of non-public supertype hierarchies.
+	 */
+	private final MethodNameCache methodNames;
+
+	/**
+	 * Methods that can be overridden in type hierarchies, as names and
+	 * parameter counts. Source code has {@link Override} annotations for
+	 * this, but they're not present in class files.
+	 */
+	private final MethodNameCache overridable;
+
+	public ClassFileGenerator(ClassPath classPath, TypeBlacklist blacklist, MethodNameCache methodNames) {
+		this.classPath = classPath;
+		this.blacklist = blacklist;
+		this.methodNames = methodNames;
+		this.overridable = new MethodNameCache();
+	}
+
+	/**
+	 * Reads type AST from a class file.
+	 * @param type Class file.
+	 * @return Type or empty optional if it is not a public top-level type.
+	 */
+	public Optional<TypeDefinition> parseType(ClassFile type) {
+		if (type.is(ClassFile.ACC_MODULE) || type.name.endsWith("/package-info") || type.name.equals("package-info")) {
+			return Optional.empty();
+		}
+		if (type.isNested()) {
+			return Optional.empty(); // Processed with their enclosing types
+		}
+		if (type.is(ClassFile.ACC_PUBLIC)) {
+			return Optional.of(processType(type.sourceName(), type));
+		} else {
+			return Optional.empty();
+		}
+	}
+
+	private TypeDefinition processType(String typeName, ClassFile type) {
+		// Class signature has type parameters, superclass and interfaces
+		SignatureReader signature = type.signature != null ? new SignatureReader(type.signature, type::sourceName) : null;
+		List<TypeRef> typeParams = signature != null ? signature.readTypeParams() : List.of();
+		TypeRef typeRef = typeParams.isEmpty() ? TypeRef.fromName(typeName)
+				: TypeRef.parametrized(TypeRef.fromName(typeName), typeParams);
+		List<String> supertypeNames = new ArrayList<>();
+		if (type.superName != null) {
+			supertypeNames.add(type.superName);
+		}
+		supertypeNames.addAll(type.interfaces);
+		List<TypeRef> supertypeRefs = new ArrayList<>();
+		for (String name : supertypeNames) {
+			supertypeRefs.add(signature != null ? signature.readType() : TypeRef.fromName(type.sourceName(name)));
+		}
+
+		List<Member> members = new ArrayList<>();
+		// Create a lambda to support filtering members before they're added
+		Consumer<Member> addMember = (member) -> {
+			if (!blacklist.isBlacklisted(member)) {
+				members.add(member);
+			}
+		};
+
+		// Figure out supertypes and interfaces (needed by some members)
+		TypeDefinition.Kind typeKind;
+		List<TypeRef> superTypes = new ArrayList<>();
+		List<TypeRef> interfaces = new ArrayList<>();
+		// Overrides of methods from non-public types are not overrides from TS point of view
+		Set<String> privateOverrides = new HashSet<>();
+		boolean isAbstract = false;
+		boolean isInterface = type.is(ClassFile.ACC_INTERFACE);
+		if (type.is(ClassFile.ACC_ANNOTATION)) {
+			typeKind = TypeDefinition.Kind.ANNOTATION;
+		} else if (type.is(ClassFile.ACC_ENUM)) {
+			typeKind = TypeDefinition.Kind.ENUM;
+			superTypes.add(TypeRef.enumSuperClass(typeRef));
+
+			// Enum constants and compiler-generated methods
+			for (ClassFile.MemberInfo field : type.fields) {
+				if (field.is(ClassFile.ACC_ENUM)) {
+					addMember.accept(new Field(field.name, typeRef, null, true, true, true));
+				}
+			}
+			addMember.accept(new Method("valueOf", typeRef,
+					List.of(new Parameter("name", TypeRef.STRING, false)),
+					List.of(), null, true, true, false));
+			addMember.accept(new Method("values", typeRef.makeArray(1), List.of(), List.of(), null, true, true, false));
+		} else {
+			if (isInterface) {
+				// Make interface functional if annotated as such
+				typeKind = type.annotations.contains("Ljava/lang/FunctionalInterface;")
+						? TypeDefinition.Kind.FUNCTIONAL_INTERFACE : TypeDefinition.Kind.INTERFACE;
+			} else {
+				typeKind = TypeDefinition.Kind.CLASS;
+				isAbstract = type.is(ClassFile.ACC_ABSTRACT);
+			}
+			for (int i = 0; i < supertypeNames.size(); i++) {
+				String name = supertypeNames.get(i);
+				if (name.equals("java/lang/Object") || name.equals("java/lang/Record")) {
+					continue; // Implicit, not in source code either
+				}
+				if (isPublic(name)) {
+					TypeRef ref = supertypeRefs.get(i);
+					if (!blacklist.isBlacklisted(ref)) {
+						// Interfaces extend, classes implement other interfaces
+						boolean extended = isInterface || name.equals(type.superName);
+						(extended ? superTypes : interfaces).add(ref);
+					}
+				} else {
+					privateOverrides.addAll(getAllMethods(name));
+				}
+			}
+		}
+
+		// Handle normal members
+		for (ClassFile.MemberInfo field : type.fields) {
+			if (!field.is(ClassFile.ACC_SYNTHETIC) && !field.is(ClassFile.ACC_ENUM)) {
+				processField(type, field, isInterface, addMember);
+			}
+		}
+		if (typeKind != TypeDefinition.Kind.ANNOTATION) { // Annotation elements are not members
+			for (ClassFile.MethodInfo method : type.methods) {
+				if (method.is(ClassFile.ACC_PUBLIC) && !method.is(ClassFile.ACC_SYNTHETIC)
+						&& !method.is(ClassFile.ACC_BRIDGE) && !method.name.equals("<clinit>")
+						&& !(typeKind == TypeDefinition.Kind.ENUM && isEnumMethod(method))) {
+					processMethod(typeName, type, supertypeNames, privateOverrides, method, addMember);
+				}
+			}
+		}
+		for (ClassFile.InnerClass inner : type.memberClasses()) {
+			if ((inner.accessFlags & ClassFile.ACC_PUBLIC) != 0 || isInterface) {
+				// Recursively process an inner type
+				classPath.find(inner.name).ifPresent(innerType
+						-> addMember.accept(processType(typeName + "." + inner.simpleName, innerType)));
+			}
+		}
+
+		// Create type definition
+		return new TypeDefinition(null, type.is(ClassFile.ACC_STATIC), typeRef, typeKind, isAbstract,
+				superTypes, interfaces, members);
+	}
+
+	private boolean isEnumMethod(ClassFile.MethodInfo method) {
+		// Generated methods are added separately
+		return method.is(ClassFile.ACC_STATIC) && (method.name.equals("values") && method.descriptor.startsWith("()")
+				|| method.name.equals("valueOf") && method.descriptor.startsWith("(Ljava/lang/String;)"));
+	}
+
+	private boolean isPublic(String internalName) {
+		// Unknown types are assumed public; they might be e.g. from missing symbol jars
+		return classPath.summary(internalName).map(type -> type.isExtensible).orElse(true);
+	}
+
+	private static boolean isNullable(Set<String> annotations) {
+		for (String annotation : annotations) {
+			// Any annotation named Nullable, like in source code
+			if (annotation.endsWith("/Nullable;") || annotation.endsWith("$Nullable;") || annotation.equals("LNullable;")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Set<String> getAllMethods(String internalName) {
+		ClassPath.Summary type = classPath.summary(internalName).orElse(null);
+		if (type == null) {
+			return Set.of();
+		}
+		return methodNames.get(type.sourceName, () -> {
+			Set<String> names = new HashSet<>(type.methodNames);
+			if (type.superName != null) {
+				names.addAll(getAllMethods(type.superName));
+			}
+			type.interfaces.forEach(i -> names.addAll(getAllMethods(i)));
+			return names;
+		});
+	}
+
+	static String overrideKey(String name, List<TypeRef> params) {
+		return name + "/" + params.size();
+	}
+
+	private Set<String> getOverridable(String internalName) {
+		ClassPath.Summary type = classPath.summary(internalName).orElse(null);
+		if (type == null) {
+			return Set.of();
+		}
+		return overridable.get(type.sourceName, () -> {
+			Set<String> keys = new HashSet<>(type.overridable);
+			if (type.superName != null) {
+				keys.addAll(getOverridable(type.superName));
+			}
+			type.interfaces.forEach(i -> keys.addAll(getOverridable(i)));
+			return keys;
+		});
+	}
+
+	private List<Parameter> getParameters(ClassFile.MethodInfo method, List<TypeRef> types, int syntheticCount) {
+		List<Set<String>> annotations = method.paramAnnotations;
+		// Annotation indices either include synthetic parameters or not
+		int annotationOffset = annotations.size() == types.size() + syntheticCount ? syntheticCount : 0;
+		List<Parameter> params = new ArrayList<>(types.size());
+		for (int i = 0; i < types.size(); i++) {
+			String name = method.paramNames != null && syntheticCount + i < method.paramNames.length
+					? method.paramNames[syntheticCount + i] : "arg" + i;
+			TypeRef type = types.get(i);
+			int annotationIndex = annotationOffset + i;
+			if (annotationIndex < annotations.size() && isNullable(annotations.get(annotationIndex))) {
+				type = TypeRef.nullable(type);
+			}
+			boolean varargs = method.is(ClassFile.ACC_VARARGS) && i == types.size() - 1;
+			params.add(new Parameter(name, type, varargs));
+		}
+		return params;
+	}
+
+	private void processMethod(String typeName, ClassFile type, List<String> supertypeNames,
+			Set<String> privateOverrides, ClassFile.MethodInfo member, Consumer<Member> addMember) {
+		boolean isPublic = true; // Private methods are not yet needed, so they won't exist
+
+		SignatureReader signature = new SignatureReader(member.signature != null ? member.signature : member.descriptor,
+				type::sourceName);
+		List<TypeRef> typeParams = signature.readTypeParams();
+		List<TypeRef> paramTypes = signature.readParams();
+		TypeRef returnType = signature.readType();
+		int syntheticCount = new SignatureReader(member.descriptor, type::sourceName).readParams().size()
+				- paramTypes.size();
+		if (member.name.equals("<init>")) {
+			if (member.signature == null && type.isInner()) {
+				// Descriptor has enclosing instance as first parameter
+				paramTypes = paramTypes.subList(1, paramTypes.size());
+				syntheticCount = 1;
+			}
+			// Constructor might be generic, but AFAIK TypeScript doesn't support that
+			// (constructors of generic classes are, of course, supported)
+			String name = typeName.substring(typeName.lastIndexOf('.') + 1);
+			addMember.accept(new Constructor(name, getParameters(member, paramTypes, syntheticCount), null, true));
+			return;
+		}
+
+		String name = member.name;
+		boolean isStatic = member.is(ClassFile.ACC_STATIC);
+		if (isNullable(member.annotations)) {
+			returnType = TypeRef.nullable(returnType);
+		}
+		String key = overrideKey(name, paramTypes);
+		boolean override = !isStatic && !privateOverrides.contains(name)
+				&& supertypeNames.stream().anyMatch(t -> getOverridable(t).contains(key));
+		// boolean getters and setters are kept as regular methods to prevent confusing naming
+		if (name.length() > 3 && name.startsWith("get") && returnType != TypeRef.VOID
+				&& returnType != TypeRef.BOOLEAN && paramTypes.isEmpty() && typeParams.isEmpty()) {
+			// GraalJS will make this getter work, somehow
+			addMember.accept(new Getter(name, returnType, null, isPublic, isStatic, override));
+		} else if (name.length() > 3 && name.startsWith("set") && paramTypes.size() == 1
+				&& paramTypes.get(0) != TypeRef.BOOLEAN && typeParams.isEmpty()) {
+			// GraalJS will make this setter work, somehow
+			addMember.accept(new Setter(name, getParameters(member, paramTypes, syntheticCount).get(0).type,
+					null, isPublic, isStatic, override));
+		} else { // Normal method
+			addMember.accept(new Method(name, returnType, getParameters(member, paramTypes, syntheticCount),
+					typeParams, null, isPublic, isStatic, override));
+		}
+	}
+
+	private void processField(ClassFile type, ClassFile.MemberInfo field, boolean isInterface,
+			Consumer<Member> addMember) {
+		TypeRef fieldType = new SignatureReader(field.signature != null ? field.signature : field.descriptor,
+				type::sourceName).readType();
+		if (isNullable(field.annotations)) {
+			fieldType = TypeRef.nullable(fieldType);
+		}
+		boolean isPublic = field.is(ClassFile.ACC_PUBLIC);
+		boolean isStatic = isInterface || field.is(ClassFile.ACC_STATIC);
+		boolean isFinal = isInterface || field.is(ClassFile.ACC_FINAL);
+		// Like AstGenerator, include non-public fields too
+		addMember.accept(new Field(field.name, fieldType, null, isPublic, isStatic, isFinal));
+	}
+}
@@ -0,0 +1,140 @@
+package io.github.bensku.tsbind.classfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds class files by their internal names. Classes are looked up from
+ * given roots (directories or opened jar files) first, and then from
+ * the classpath and JDK this program runs on.
+ *
+ * This is thread-safe. Class files themselves are not cached, only
+ * {@link Summary summaries} of classes that are looked up as supertypes.
+ *
+ */
+public class ClassPath {
+
+	/**
+	 * What is needed of a class when it is looked up as a supertype.
+	 *
+	 */
+	public static class Summary {
+
+		/**
+		 * Fully qualified source name.
+		 */
+		public final String sourceName;
+
+		/**
+		 * If the class is public and not a functional interface. Functional
+		 * interfaces are converted to function types, which can't be extended.
+		 */
+		public final boolean isExtensible;
+
+		/**
+		 * Internal name of superclass, or null if there is none.
+		 */
+		public final String superName;
+
+		/**
+		 * Internal names of implemented interfaces.
+		 */
+		public final List<String> interfaces;
+
+		/**
+		 * Names of all declared methods, excluding constructors.
+		 */
+		public final Set<String> methodNames;
+
+		/**
+		 * Declared instance methods that are not private, as override keys
+		 * (see {@link ClassFileGenerator#overrideKey(String, List)}).
+		 */
+		public final Set<String> overridable;
+
+		private Summary(ClassFile type) {
+			this.sourceName = type.sourceName();
+			this.isExtensible = type.is(ClassFile.ACC_PUBLIC)
+					&& !type.annotations.contains("Ljava/lang/FunctionalInterface;");
+			this.superName = type.superName;
+			this.interfaces = type.interfaces;
+			Set<String> methodNames = new HashSet<>();
+			Set<String> overridable = new HashSet<>();
+			for (ClassFile.MethodInfo method : type.methods) {
+				if (method.name.startsWith("<")) {
+					continue;
+				}
+				methodNames.add(method.name);
+				if (!method.is(ClassFile.ACC_PRIVATE) && !method.is(ClassFile.ACC_STATIC)) {
+					overridable.add(ClassFileGenerator.overrideKey(method.name,
+							new SignatureReader(method.descriptor, type::sourceName).readParams()));
+				}
+			}
+			this.methodNames = Set.copyOf(methodNames);
+			this.overridable = Set.copyOf(overridable);
+		}
+	}
+
+	private final List<Path> roots;
+
+	/**
+	 * Summaries of classes that have been looked up.
+	 */
+	private final Map<String, Optional<Summary>> summaries;
+
+	public ClassPath(List<Path> roots) {
+		this.roots = roots;
+		this.summaries = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Finds and reads a class. This is not cached, so it should be called
+	 * only once for each class, e.g. for inner types of inputs.
+	 * @param internalName Internal name, e.g. {@code java/util/Map$Entry}.
+	 * @return Class file, or empty optional if it was not found.
+	 */
+	public Optional<ClassFile> find(String internalName) {
+		return load(internalName);
+	}
+
+	/**
+	 * Finds summary of a class.
+	 * @param internalName Internal name, e.g. {@code java/util/Map$Entry}.
+	 * @return Class summary, or empty optional if the class was not found.
+	 */
+	public Optional<Summary> summary(String internalName) {
+		Optional<Summary> found = summaries.get(internalName);
+		if (found == null) {
+			// Another thread might load same class at same time, which is harmless
+			found = load(internalName).map(Summary::new);
+			summaries.putIfAbsent(internalName, found);
+		}
+		return found;
+	}
+
+	private Optional<ClassFile> load(String internalName) {
+		String fileName = internalName + ".class";
+		try {
+			for (Path root : roots) {
+				Path file = root.resolve(fileName);
+				if (Files.exists(file)) {
+					return Optional.of(new ClassFile(Files.readAllBytes(file)));
+				}
+			}
+			try (InputStream in = ClassLoader.getSystemResourceAsStream(fileName)) {
+				return in != null ? Optional.of(new ClassFile(in.readAllBytes())) : Optional.empty();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
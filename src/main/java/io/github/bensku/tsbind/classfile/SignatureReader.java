@@ -0,0 +1,177 @@
+package io.github.bensku.tsbind.classfile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import io.github.bensku.tsbind.ast.TypeRef;
+
+/**
+ * Reads type descriptors and generic signatures of class files to type
+ * references. The results are same as what
+ * {@link TypeRef#fromType(com.github.javaparser.resolution.types.ResolvedType)}
+ * produces for equivalent resolved types.
+ *
+ */
+public class SignatureReader {
+
+	/**
+	 * Descriptor or signature.
+	 */
+	private final String signature;
+
+	/**
+	 * Converts internal class names to source names.
+	 */
+	private final Function<String, String> names;
+
+	private int pos;
+
+	public SignatureReader(String signature, Function<String, String> names) {
+		this.signature = signature;
+		this.names = names;
+	}
+
+	private char peek() {
+		return signature.charAt(pos);
+	}
+
+	/**
+	 * Checks if there is more to read.
+	 * @return Whether we're not at end of signature.
+	 */
+	public boolean hasMore() {
+		return pos < signature.length();
+	}
+
+	/**
+	 * Reads a single type.
+	 * @return Type reference.
+	 */
+	public TypeRef readType() {
+		char c = signature.charAt(pos++);
+		switch (c) {
+		case 'V':
+			return TypeRef.VOID;
+		case 'Z':
+			return TypeRef.BOOLEAN;
+		case 'B':
+			return TypeRef.BYTE;
+		case 'S':
+			return TypeRef.SHORT;
+		case 'C':
+			return TypeRef.CHAR;
+		case 'I':
+			return TypeRef.INT;
+		case 'J':
+			return TypeRef.LONG;
+		case 'F':
+			return TypeRef.FLOAT;
+		case 'D':
+			return TypeRef.DOUBLE;
+		case 'L':
+			return readClassType();
+		case 'T':
+			int end = signature.indexOf(';', pos);
+			String name = signature.substring(pos, end);
+			pos = end + 1;
+			return TypeRef.fromName(name);
+		case '[':
+			int dimensions = 1;
+			while (peek() == '[') {
+				pos++;
+				dimensions++;
+			}
+			// Symbol solver sees int[][] as array of int[], so we do the same
+			TypeRef type = readType();
+			for (int i = 1; i <= dimensions; i++) {
+				type = TypeRef.array(type, i);
+			}
+			return type;
+		default:
+			throw new IllegalArgumentException("unexpected " + c + " in signature " + signature);
+		}
+	}
+
+	private TypeRef readClassType() {
+		StringBuilder name = new StringBuilder();
+		List<TypeRef> typeArgs = List.of();
+		while (true) {
+			char c = signature.charAt(pos++);
+			if (c == ';') {
+				break;
+			} else if (c == '<') {
+				typeArgs = readTypeArgs();
+			} else if (c == '.') {
+				name.append('$'); // Inner class of generic class
+				typeArgs = List.of(); // Only type arguments of innermost class are used
+			} else {
+				name.append(c);
+			}
+		}
+		TypeRef type = TypeRef.fromName(names.apply(name.toString()));
+		return typeArgs.isEmpty() ? type : TypeRef.parametrized(type, typeArgs);
+	}
+
+	private List<TypeRef> readTypeArgs() {
+		List<TypeRef> args = new ArrayList<>();
+		while (peek() != '>') {
+			char c = peek();
+			if (c == '*') {
+				pos++;
+				args.add(TypeRef.OBJECT);
+			} else if (c == '+') {
+				pos++;
+				args.add(TypeRef.wildcard(readType()));
+			} else if (c == '-') {
+				pos++;
+				readType();
+				args.add(TypeRef.OBJECT); // We can't describe ? super X in TS (AFAIK)
+			} else {
+				args.add(readType());
+			}
+		}
+		pos++; // >
+		return args;
+	}
+
+	/**
+	 * Reads type parameters of a generic class or method signature, if
+	 * there are any.
+	 * @return Type parameter names, as type references.
+	 */
+	public List<TypeRef> readTypeParams() {
+		if (!hasMore() || peek() != '<') {
+			return List.of();
+		}
+		pos++;
+		List<TypeRef> params = new ArrayList<>();
+		while (peek() != '>') {
+			int end = signature.indexOf(':', pos);
+			params.add(TypeRef.fromName(signature.substring(pos, end)));
+			pos = end;
+			while (peek() == ':') { // Class bound (may be empty) and interface bounds
+				pos++;
+				if (peek() != ':' && peek() != '>') {
+					readType(); // Bounds are not used
+				}
+			}
+		}
+		pos++; // >
+		return params;
+	}
+
+	/**
+	 * Reads parameter types of a method descriptor or signature.
+	 * @return Parameter types.
+	 */
+	public List<TypeRef> readParams() {
+		pos++; // (
+		List<TypeRef> params = new ArrayList<>();
+		while (peek() != ')') {
+			params.add(readType());
+		}
+		pos++; // )
+		return params;
+	}
+}
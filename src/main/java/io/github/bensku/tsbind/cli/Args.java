@@ -30,6 +30,12 @@ public class Args {
 	@Parameter(names = "--in")
 	public List<Path> in;
 	
+	@Parameter(names = "--inClasses")
+	public List<Path> inClasses = new ArrayList<>();
+	
+	@Parameter(names = "--hybrid")
+	public boolean hybrid;
+	
 	@Parameter(names = "--symbols")
 	public List<Path> symbols = new ArrayList<>();
 	
@@ -48,6 +54,9 @@ public class Args {
 	@Parameter(names = "--exclude")
 	public List<String> exclude = List.of();
 	
+	@Parameter(names = "--ignoreModules")
+	public boolean ignoreModules;
+	
 	@Parameter(names = "--blacklist")
 	public List<String> blacklist = List.of();
 	
@@ -59,4 +68,34 @@ public class Args {
 	
 	@Parameter(names = "--index")
 	public boolean index;
+	
+	@Parameter(names = "--threads")
+	public int threads = 1;
+	
+	@Parameter(names = "--ioThreads")
+	public int ioThreads = 1;
+	
+	@Parameter(names = "--cacheDir")
+	public Path cacheDir;
+	
+	@Parameter(names = "--syntacticTypes")
+	public boolean syntacticTypes;
+	
+	@Parameter(names = "--solverCacheBudget")
+	public int solverCacheBudget;
+	
+	@Parameter(names = "--parseTimeout")
+	public long parseTimeout;
+	
+	@Parameter(names = "--quarantine")
+	public Path quarantine;
+	
+	@Parameter(names = "--quarantineTimeout")
+	public long quarantineTimeout;
+	
+	@Parameter(names = "--twoPass")
+	public boolean twoPass;
+	
+	@Parameter(names = "--signaturesOnly")
+	public boolean signaturesOnly;
 }
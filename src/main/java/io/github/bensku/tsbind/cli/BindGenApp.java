@@ -1,15 +1,29 @@
 package io.github.bensku.tsbind.cli;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import com.beust.jcommander.JCommander;
@@ -17,22 +31,73 @@ import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ParserConfiguration.LanguageLevel;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 import com.google.gson.GsonBuilder;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 
+import io.github.bensku.tsbind.AstConsumer;
 import io.github.bensku.tsbind.AstConsumer.Result;
 import io.github.bensku.tsbind.AstGenerator;
+import io.github.bensku.tsbind.IndexedJarTypeSolver;
+import io.github.bensku.tsbind.JavadocIndex;
+import io.github.bensku.tsbind.MethodNameCache;
+import io.github.bensku.tsbind.PackageRoutingTypeSolver;
+import io.github.bensku.tsbind.ParseWatchdog;
+import io.github.bensku.tsbind.ParseCache;
+import io.github.bensku.tsbind.PublicTypeFilter;
+import io.github.bensku.tsbind.SolverCacheLimiter;
+import io.github.bensku.tsbind.SourceFile;
+import io.github.bensku.tsbind.SourcePrefetcher;
 import io.github.bensku.tsbind.SourceUnit;
+import io.github.bensku.tsbind.SymbolIndex;
+import io.github.bensku.tsbind.SyntacticTypeResolver;
+import io.github.bensku.tsbind.TypeBlacklist;
+import io.github.bensku.tsbind.TypeCollector;
+import io.github.bensku.tsbind.TypeSpill;
+import io.github.bensku.tsbind.UnsolvedSymbolCache;
+import io.github.bensku.tsbind.ast.JavadocStore;
 import io.github.bensku.tsbind.ast.TypeDefinition;
+import io.github.bensku.tsbind.classfile.ClassFile;
+import io.github.bensku.tsbind.classfile.ClassFileGenerator;
+import io.github.bensku.tsbind.classfile.ClassPath;
 import io.github.bensku.tsbind.binding.EarlyTypeTransformer;
 
 public class BindGenApp {
 	
+	/**
+	 * Read-only view of two type tables. Types are looked up from the first
+	 * table, then from the second one. Only lookups are supported.
+	 *
+	 */
+	private static class OverlayTable extends AbstractMap<String, TypeDefinition> {
+		
+		private final Map<String, TypeDefinition> top, bottom;
+		
+		OverlayTable(Map<String, TypeDefinition> top, Map<String, TypeDefinition> bottom) {
+			this.top = top;
+			this.bottom = bottom;
+		}
+
+		@Override
+		public TypeDefinition get(Object key) {
+			TypeDefinition type = top.get(key);
+			return type != null ? type : bottom.get(key);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return top.containsKey(key) || bottom.containsKey(key);
+		}
+
+		@Override
+		public Set<Entry<String, TypeDefinition>> entrySet() {
+			throw new UnsupportedOperationException("type table overlay can't be iterated");
+		}
+	}
+	
 	public static void main(String... argv) throws IOException, InterruptedException {
 		// Parse command-line arguments
 		Args args = new Args();
@@ -71,109 +136,321 @@ public class BindGenApp {
 				System.out.println("Resolving Maven artifact " + artifact);
 				MavenResolver.ArtifactResults results = resolver.downloadArtifacts(artifact, true);
 				inputPaths.add(results.sourceJar);
+				if (args.hybrid) {
+					args.inClasses.add(results.symbols.get(0)); // Binary jar of the artifact itself
+				}
 				args.symbols.addAll(results.symbols);
 			}
 		} else {
-			inputPaths = args.in;
+			inputPaths = args.in != null ? args.in : List.of();
 		}
-		System.out.println("Generating types for " + inputPaths + " to " + args.out);
+		if (args.hybrid && args.inClasses.isEmpty()) {
+			// Sources would only be scanned for Javadoc, with no types to add it to
+			throw new IllegalArgumentException("--hybrid requires --inClasses or --artifact");
+		}
+		if (args.twoPass && args.format != Args.OutputFormat.TS_TYPES) {
+			throw new IllegalArgumentException("--twoPass requires TS_TYPES format");
+		}
+		System.out.println("Generating types for " + inputPaths
+				+ (args.inClasses.isEmpty() ? "" : " and classes in " + args.inClasses) + " to " + args.out);
 		
 		// Prepare for AST generation
-		JavaParser parser = setupParser(args.symbols);
-		AstGenerator astGenerator = new AstGenerator(parser, args.blacklist);
+		// JavaParser and symbol solver are not thread-safe, so each worker gets its own
+		List<Path> symbols = args.symbols;
+		List<SymbolIndex> symbolIndices = new ArrayList<>();
+		for (Path jar : symbols) {
+			symbolIndices.add(SymbolIndex.load(jar));
+		}
+		List<String> blacklist = args.blacklist;
+		TypeBlacklist typeBlacklist = new TypeBlacklist(blacklist); // Shared, so verdicts are cached only once
+		MethodNameCache methodNames = new MethodNameCache();
+		UnsolvedSymbolCache unsolved = new UnsolvedSymbolCache(); // Missing dependencies fail fast in all workers
+		boolean signaturesOnly = args.signaturesOnly;
+		List<SolverCacheLimiter> limiters = Collections.synchronizedList(new ArrayList<>()); // For statistics
+		int solverCacheBudget = args.solverCacheBudget;
+		SolverCacheLimiter.Group limiterGroup = new SolverCacheLimiter.Group();
+		ThreadLocal<SolverCacheLimiter> cacheLimiters = ThreadLocal.withInitial(() -> {
+			SolverCacheLimiter limiter = new SolverCacheLimiter(solverCacheBudget, limiterGroup);
+			limiters.add(limiter);
+			return limiter;
+		});
+		PublicTypeFilter publicFilter = new PublicTypeFilter();
+		ParseWatchdog watchdog = new ParseWatchdog(args.parseTimeout, args.quarantine, args.quarantineTimeout);
+		// Javadoc is kept on disk until it is emitted
+		JavadocStore javadocStore = new JavadocStore();
+		ExecutorService executor = Executors.newFixedThreadPool(args.threads, task -> {
+			Thread thread = new Thread(task, "tsbind-parser");
+			thread.setDaemon(true); // Don't keep JVM alive if main thread fails
+			return thread;
+		});
 		
-		// Walk over input Java source files
+		// Find input Java source files
+		SourceDiscovery discovery = new SourceDiscovery(args.include, args.exclude, ".java", !args.ignoreModules);
 		String offset = args.offset;
-		List<String> include = args.include;
-		List<String> exclude = args.exclude;
 		Path outDir = args.out;
+		List<SourceFile> files = discovery.findSources(inputPaths, offset);
 		
-		try (Stream<Path> files = inputPaths.stream().map(t -> {
-				if (Files.isDirectory(t)) {
-					return t;
-				} else {
-					// Path should be zip file, access it as directory
-					try {
-						return FileSystems.newFileSystem(t, (ClassLoader) null).getPath("/");
-					} catch (IOException e) {
-						throw new RuntimeException(e);
-					}
-				}
-			}).map(t -> t.resolve(offset)) // Apply offset argument
-			.flatMap(t -> {
-				// Walk all files from ALL inputs
-				try {
-					// Filter here, because we need to relativize to each input directory
-					return Files.walk(t)
-							.filter(f -> isIncluded(t.relativize(f).toString().replace(File.separatorChar, '.'),
-									include, exclude));
-				} catch (IOException e) {
-					throw new RuntimeException(e); // Thanks, Java
+		// Types in sources and symbol jars are known without symbol solver
+		SyntacticTypeResolver syntacticTypes = null;
+		Set<String> sourceTypes = null;
+		if (args.syntacticTypes) {
+			sourceTypes = files.stream().map(SourceFile::typeName).collect(Collectors.toSet());
+			Set<String> knownTypes = new HashSet<>(sourceTypes);
+			for (SymbolIndex index : symbolIndices) {
+				knownTypes.addAll(index.classNames());
+			}
+			syntacticTypes = new SyntacticTypeResolver(knownTypes::contains);
+		}
+		// Known source types affect results of syntactic resolution, so they're part of cache key
+		ParseCache cache = args.cacheDir != null
+				? new ParseCache(args.cacheDir, symbols, blacklist, sourceTypes, javadocStore) : null;
+		SyntacticTypeResolver fastResolver = syntacticTypes;
+		ThreadLocal<AstGenerator> generators = ThreadLocal.withInitial(()
+				-> new AstGenerator(setupParser(symbolIndices, unsolved, cacheLimiters.get()), typeBlacklist,
+						methodNames, signaturesOnly, fastResolver, javadocStore));
+		
+		// Parse and resolve files in parallel
+		// In hybrid mode, sources are only scanned for Javadoc of types read from classes
+		JavadocIndex javadocs = args.hybrid ? new JavadocIndex(javadocStore) : null;
+		// Files are loaded on separate I/O threads, a bit ahead of parsing
+		ExecutorService ioExecutor = Executors.newFixedThreadPool(args.ioThreads, task -> {
+			Thread thread = new Thread(task, "tsbind-io");
+			thread.setDaemon(true);
+			return thread;
+		});
+		SourcePrefetcher prefetcher = new SourcePrefetcher(files, ioExecutor, args.threads * 8);
+		prefetcher.start();
+		// Parsed types go to a collector thread through a bounded buffer
+		// If it falls behind, workers block instead of queuing up results
+		ExecutorService collectorExecutor = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "tsbind-collector");
+			thread.setDaemon(true);
+			return thread;
+		});
+		SubmissionPublisher<TypeCollector.Parsed> parsedTypes = new SubmissionPublisher<>(collectorExecutor,
+				Flow.defaultBufferSize());
+		// In two-pass mode, only summaries of types are kept in memory during first pass
+		TypeSpill spill = args.twoPass ? new TypeSpill(javadocStore) : null;
+		try {
+			TypeCollector collector = new TypeCollector(spill);
+			parsedTypes.subscribe(collector);
+			List<Future<?>> pending = IntStream.range(0, files.size()).mapToObj(i -> publish(executor, parsedTypes, i, () -> {
+				String typeName = files.get(i).typeName();
+				if (javadocs == null && watchdog.isSkipped(typeName)) {
+					prefetcher.take(i); // Drop the loaded file
+					return Optional.<TypeDefinition>empty();
 				}
-			})
-			// Filter out files that are not likely contain Java source code
-			.filter(Files::isRegularFile)
-			.filter(f -> f.getFileName().toString().endsWith(".java"))
-			.filter(f -> !f.getFileName().toString().equals("package-info.java"))) {
-			Map<String, TypeDefinition> types = new HashMap<>();
-			files.map(path -> {
+				SourceUnit source;
 				try {
-					return new SourceUnit(path.toString(), Files.readString(path));
+					source = prefetcher.take(i);
 				} catch (IOException e) {
 					// TODO handle this better
 					throw new RuntimeException(e);
 				}
-			}).map(astGenerator::parseType)
-			.flatMap(Optional::stream).forEach(type -> {
-				System.out.println("Parsed type " + type.name());
-				types.put(type.name(), type);
-			});
-			
-			// Apply early transformation passes that need all types
-			EarlyTypeTransformer earlyTransform = new EarlyTypeTransformer(types);
-			for (TypeDefinition def : types.values()) {
-				earlyTransform.addMissingOverloads(def);
+				if (javadocs != null) {
+					javadocs.scan(source.code);
+					return Optional.<TypeDefinition>empty();
+				}
+				cacheLimiters.get().startFile(files.get(i).packageName());
+				if (!publicFilter.test(source)) {
+					return Optional.<TypeDefinition>empty(); // Would be parsed just to be thrown away
+				}
+				try {
+					if (cache != null) {
+						// Parser (and symbol solver) is created only on cache miss
+						// Abandoned files are not cached, the exception skips that
+						Optional<TypeDefinition> type = cache.parseType(source,
+								src -> watchdog.parse(typeName, () -> generators.get().parseType(src)));
+						watchdog.succeeded(typeName); // Cache hits don't go through watchdog
+						return type;
+					}
+					return watchdog.parse(typeName, () -> generators.get().parseType(source));
+				} catch (ParseWatchdog.TimeoutException e) {
+					return Optional.<TypeDefinition>empty(); // Already logged
+				}
+			})).collect(Collectors.toCollection(ArrayList::new));
+		
+			// Read compiled classes, which needs neither parser nor symbol solver
+			List<FileSystem> classArchives = new ArrayList<>(); // Closed once all classes have been read
+			List<Path> classRoots = openRoots(args.inClasses, offset, classArchives);
+			List<Path> classPath = new ArrayList<>(classRoots);
+			classPath.addAll(openRoots(symbols, "", classArchives)); // For supertypes
+			ClassFileGenerator classGenerator = new ClassFileGenerator(new ClassPath(classPath), typeBlacklist, methodNames);
+			int order = files.size(); // Classes come after all sources
+			for (Path path : new SourceDiscovery(args.include, args.exclude, ".class", false).findFiles(classRoots)) {
+				pending.add(publish(executor, parsedTypes, order++,
+						() -> classGenerator.parseType(new ClassFile(Files.readAllBytes(path)))));
+			}
+		
+			// Whole-table passes below need all types, so wait for them here
+			Map<String, TypeDefinition> types;
+			try {
+				for (Future<?> task : pending) {
+					task.get();
+				}
+				parsedTypes.close();
+				types = collector.result().get();
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+			executor.shutdown();
+			collectorExecutor.shutdown();
+			discovery.close();
+			for (FileSystem fs : classArchives) {
+				fs.close();
+			}
+			if (discovery.unexported() > 0) {
+				System.out.println("Skipped " + discovery.unexported() + " packages not exported by their modules");
 			}
+			if (watchdog.abandoned() > 0 || watchdog.skipped() > 0) {
+				System.out.println("Abandoned " + watchdog.abandoned() + " files that took too long, skipped "
+						+ watchdog.skipped() + " quarantined files");
+			}
+			watchdog.saveQuarantine();
+			System.out.println("Source read-ahead: waited for " + prefetcher.waits() + " of " + files.size() + " files");
+			System.out.println("Skipped parsing " + publicFilter.rejected() + " of " + publicFilter.checked()
+					+ " files without public types");
+			if (cache != null) {
+				System.out.println("Parse cache: " + cache.hits() + " hits, " + cache.misses() + " misses");
+			}
+			System.out.println("Supertype method cache: " + methodNames.hits() + " hits, "
+					+ methodNames.misses() + " misses");
+			System.out.println("Unsolved symbol cache: " + unsolved.hits() + " hits for "
+					+ unsolved.size() + " unsolvable names");
+			if (syntacticTypes != null) {
+				System.out.println("Syntactic type resolution: " + syntacticTypes.fastPaths() + " declarations, "
+						+ syntacticTypes.fallbacks() + " needed symbol solver");
+			}
+			System.out.println("Symbol solver caches: " + limiters.stream().mapToInt(SolverCacheLimiter::size).sum()
+					+ " classes loaded (peak " + limiters.stream().mapToInt(SolverCacheLimiter::peakSize).sum() + "), "
+					+ limiters.stream().mapToInt(SolverCacheLimiter::evictions).sum() + " evictions");
+		
+			AstConsumer<String> consumer = args.format.consumerSource.apply(args);
+			List<Future<?>> writes;
+			if (spill == null) {
+				if (javadocs != null) {
+					types.replaceAll((name, def) -> javadocs.apply(def));
+				}
 			
-			Stream<Result<String>> results = args.format.consumerSource.apply(args)
-					.consume(types);
-			results.forEach(result -> {
-				System.out.println("Writing module " + result.name);
-				try {
-					Files.writeString(outDir.resolve(result.name), result.result);
-				} catch (IOException e) {
-					// TODO handle this better
-					throw new RuntimeException(e);
+				// Apply early transformation passes that need all types
+				// Types are replaced in place, so later types see the changes to earlier ones
+				EarlyTypeTransformer earlyTransform = new EarlyTypeTransformer(types);
+				types.replaceAll((name, def) -> earlyTransform.addMissingOverloads(def));
+			
+				writes = writeResults(consumer.consume(types), ioExecutor, outDir);
+			} else {
+				// Second pass: load, transform and emit one part at a time
+				// Other parts are visible to transformation passes only as summaries
+				Map<String, List<String>> parts = new TreeMap<>();
+				for (TypeDefinition summary : types.values()) {
+					String part = consumer.part(summary);
+					if (part != null) { // Others stay in type table as summaries
+						parts.computeIfAbsent(part, key -> new ArrayList<>()).add(summary.name());
+					}
 				}
-			});
+				for (List<String> names : parts.values()) {
+					Map<String, TypeDefinition> partTypes = new HashMap<>();
+					for (String name : names) {
+						partTypes.put(name, spill.load(name));
+					}
+					if (javadocs != null) {
+						partTypes.replaceAll((name, def) -> javadocs.apply(def));
+					}
+					// Full types of this part hide their summaries, without copying the summaries
+					Map<String, TypeDefinition> typeTable = new OverlayTable(partTypes, types);
+					EarlyTypeTransformer earlyTransform = new EarlyTypeTransformer(typeTable);
+					for (Map.Entry<String, TypeDefinition> entry : partTypes.entrySet()) {
+						entry.setValue(earlyTransform.addMissingOverloads(entry.getValue()));
+					}
+					// Wait until written, so that nothing of this part stays in memory
+					awaitAll(writeResults(consumer.consumePart(partTypes, typeTable), ioExecutor, outDir));
+				}
+				writes = writeResults(consumer.finish(), ioExecutor, outDir);
+			}
+			if (javadocs != null) {
+				System.out.println("Added " + javadocs.applied() + " Javadoc comments from sources");
+			}
+			awaitAll(writes);
+			ioExecutor.shutdown();
+			javadocStore.close();
+		} finally {
+			if (spill != null) {
+				spill.delete(); // Even if something failed
+			}
 		}
 	}
 	
-	private static boolean isIncluded(String name, List<String> includes, List<String> excludes) {
-		boolean include = false;
-		for (String prefix : includes) {
-			if (name.startsWith(prefix)) {
-				include = true;
-				break;
+	private static List<Future<?>> writeResults(Stream<Result<String>> results, ExecutorService ioExecutor, Path outDir) {
+		// Results are produced lazily; write each on I/O threads while the next is generated
+		return results.map(result -> ioExecutor.submit(() -> {
+			System.out.println("Writing module " + result.name);
+			try {
+				Files.writeString(outDir.resolve(result.name), result.result);
+			} catch (IOException e) {
+				throw new IOException("failed to write module " + result.name, e);
+			}
+			return null;
+		})).collect(Collectors.toList());
+	}
+	
+	/**
+	 * Waits for all writes to finish, even if some of them fail, so that
+	 * every failed module is reported.
+	 * @param tasks Write tasks.
+	 * @throws IOException When any of the writes failed.
+	 * @throws InterruptedException When interrupted while waiting.
+	 */
+	private static void awaitAll(List<Future<?>> tasks) throws IOException, InterruptedException {
+		IOException failure = null;
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (ExecutionException e) {
+				System.err.println(e.getCause().getMessage());
+				if (failure == null) {
+					failure = new IOException("writing output failed", e.getCause());
+				} else {
+					failure.addSuppressed(e.getCause());
+				}
 			}
 		}
-		if (!include) {
-			return false; // Not included
+		if (failure != null) {
+			throw failure;
 		}
-		for (String prefix : excludes) {
-			if (name.startsWith(prefix)) {
-				return false; // Included but excluded
+	}
+	
+	private static Future<?> publish(ExecutorService executor, SubmissionPublisher<TypeCollector.Parsed> publisher,
+			int order, Callable<Optional<TypeDefinition>> task) {
+		return executor.submit(() -> {
+			// Blocks if collector is too far behind
+			task.call().ifPresent(type -> publisher.submit(new TypeCollector.Parsed(order, type)));
+			return null;
+		});
+	}
+	
+	private static List<Path> openRoots(List<Path> inputs, String offset, List<FileSystem> opened) throws IOException {
+		List<Path> roots = new ArrayList<>();
+		for (Path input : inputs) {
+			if (Files.isDirectory(input)) {
+				roots.add(input.resolve(offset)); // Apply offset argument
+			} else {
+				// Path should be zip file, access it as directory
+				FileSystem fs = FileSystems.newFileSystem(input, (ClassLoader) null);
+				opened.add(fs);
+				roots.add(fs.getPath("/").resolve(offset));
 			}
 		}
-		return true; // Included, not excluded
+		return roots;
 	}
 	
-	private static JavaParser setupParser(List<Path> symbolSources) throws IOException {
-		CombinedTypeSolver typeSolver = new CombinedTypeSolver();
-		typeSolver.add(new ReflectionTypeSolver());
-		for (Path jar : symbolSources) {
-			typeSolver.add(new JarTypeSolver(jar));
+	private static JavaParser setupParser(List<SymbolIndex> symbolSources, UnsolvedSymbolCache unsolved,
+			SolverCacheLimiter limiter) {
+		List<IndexedJarTypeSolver> jarSolvers = new ArrayList<>();
+		for (SymbolIndex index : symbolSources) {
+			// Jars are opened only when types from them are needed
+			jarSolvers.add(new IndexedJarTypeSolver(index, limiter));
 		}
+		TypeSolver typeSolver = new PackageRoutingTypeSolver(new ReflectionTypeSolver(), jarSolvers, unsolved);
 		
 		JavaSymbolSolver symbolSolver = new JavaSymbolSolver(typeSolver);
 		ParserConfiguration config = new ParserConfiguration();
@@ -0,0 +1,112 @@
+package io.github.bensku.tsbind.cli;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.modules.ModuleDeclaration;
+import com.github.javaparser.ast.modules.ModuleDirective;
+import com.github.javaparser.ast.modules.ModuleExportsDirective;
+
+/**
+ * Packages that a JPMS module exports to everyone, as declared in its
+ * {@code module-info.java}. Public types in other packages can't be
+ * accessed outside of the module, so there is no point in generating
+ * types for them.
+ *
+ * Qualified exports (e.g. {@code exports jdk.internal.misc to java.rmi})
+ * are not considered to be exports.
+ *
+ */
+public class ModuleExports {
+
+	/**
+	 * Reads exports of module in given input root.
+	 * @param root Input root directory.
+	 * @return Module exports, or null if the root does not contain a module
+	 * declaration.
+	 */
+	public static ModuleExports read(Path root) {
+		Path file = root.resolve("module-info.java");
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try {
+			return parse(Files.readString(file), file.toString());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Parses exports from a module declaration.
+	 * @param code Source code of {@code module-info.java}.
+	 * @param fileName Name of the file for error messages.
+	 * @return Module exports, or null if the declaration could not be parsed.
+	 */
+	public static ModuleExports parse(String code, String fileName) {
+		ParserConfiguration config = new ParserConfiguration();
+		config.setLanguageLevel(LanguageLevel.JAVA_16);
+		ParseResult<CompilationUnit> result = new JavaParser(config).parse(code);
+		ModuleDeclaration module = result.getResult().flatMap(CompilationUnit::getModule).orElse(null);
+		if (!result.isSuccessful() || module == null) {
+			System.err.println("ignoring unparseable module declaration " + fileName + ": " + result.getProblems());
+			return null;
+		}
+
+		Set<String> packages = new HashSet<>();
+		for (ModuleDirective directive : module.getDirectives()) {
+			if (directive.isModuleExportsDirective()) {
+				ModuleExportsDirective exports = directive.asModuleExportsDirective();
+				if (exports.getModuleNames().isEmpty()) {
+					packages.add(exports.getNameAsString());
+				}
+			}
+		}
+		return new ModuleExports(packages);
+	}
+
+	/**
+	 * Packages exported to everyone.
+	 */
+	private final Set<String> packages;
+
+	private ModuleExports(Set<String> packages) {
+		this.packages = packages;
+	}
+
+	/**
+	 * Checks if a package is exported.
+	 * @param packageName Package name.
+	 * @return Whether the package is exported.
+	 */
+	public boolean isExported(String packageName) {
+		return packages.contains(packageName);
+	}
+
+	/**
+	 * Checks if a package or its subpackages might be exported.
+	 * @param packageName Package (or directory) name.
+	 * @return Whether the package directory needs to be walked.
+	 */
+	public boolean mightContainExported(String packageName) {
+		if (packages.contains(packageName)) {
+			return true;
+		}
+		String prefix = packageName + ".";
+		for (String exported : packages) {
+			if (exported.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
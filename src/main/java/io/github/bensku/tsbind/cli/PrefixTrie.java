@@ -0,0 +1,99 @@
+package io.github.bensku.tsbind.cli;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Character trie of string prefixes. Used to match names against many
+ * prefixes at once.
+ *
+ */
+public class PrefixTrie {
+
+	private static class Node {
+
+		/**
+		 * Characters of child nodes, in same order as {@link #children}.
+		 */
+		char[] chars = new char[0];
+
+		/**
+		 * Child nodes.
+		 */
+		Node[] children = new Node[0];
+
+		/**
+		 * If a prefix ends at this node.
+		 */
+		boolean terminal;
+
+		Node child(char c) {
+			for (int i = 0; i < chars.length; i++) {
+				if (chars[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node addChild(char c) {
+			Node child = child(c);
+			if (child == null) {
+				child = new Node();
+				chars = Arrays.copyOf(chars, chars.length + 1);
+				children = Arrays.copyOf(children, children.length + 1);
+				chars[chars.length - 1] = c;
+				children[children.length - 1] = child;
+			}
+			return child;
+		}
+	}
+
+	private final Node root;
+
+	public PrefixTrie(List<String> prefixes) {
+		this.root = new Node();
+		for (String prefix : prefixes) {
+			Node node = root;
+			for (int i = 0; i < prefix.length(); i++) {
+				node = node.addChild(prefix.charAt(i));
+			}
+			node.terminal = true;
+		}
+	}
+
+	/**
+	 * Checks if any prefix in this trie is a prefix of given string.
+	 * @param str String.
+	 * @return Whether the string starts with one of our prefixes.
+	 */
+	public boolean matches(String str) {
+		Node node = root;
+		for (int i = 0; i < str.length(); i++) {
+			if (node.terminal) {
+				return true;
+			}
+			node = node.child(str.charAt(i));
+			if (node == null) {
+				return false;
+			}
+		}
+		return node.terminal;
+	}
+
+	/**
+	 * Checks if any prefix in this trie starts with the given string.
+	 * @param str String.
+	 * @return Whether one of our prefixes starts with the string.
+	 */
+	public boolean hasPrefixStartingWith(String str) {
+		Node node = root;
+		for (int i = 0; i < str.length(); i++) {
+			node = node.child(str.charAt(i));
+			if (node == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
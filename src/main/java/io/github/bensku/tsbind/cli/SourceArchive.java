@@ -0,0 +1,100 @@
+package io.github.bensku.tsbind.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import io.github.bensku.tsbind.SourceFile;
+import io.github.bensku.tsbind.SourcePrefetcher;
+import io.github.bensku.tsbind.SourceUnit;
+
+/**
+ * Source jar or other zip archive used as input. Its central directory is
+ * read once when it is opened; listing and filtering entries doesn't touch
+ * their data. Entries are listed in the order they appear in the archive,
+ * so loading them in that order reads the file sequentially.
+ *
+ * Unlike zip file systems, this is explicitly closed once all sources have
+ * been loaded.
+ *
+ */
+public class SourceArchive implements Closeable {
+
+	/**
+	 * Path to the archive.
+	 */
+	private final Path path;
+
+	private final ZipFile zip;
+
+	public SourceArchive(Path path) throws IOException {
+		this.path = path;
+		this.zip = new ZipFile(path.toFile());
+	}
+
+	/**
+	 * Lists all files in the archive.
+	 * @return Entries that are not directories.
+	 */
+	public List<ZipEntry> entries() {
+		return zip.stream().filter(entry -> !entry.isDirectory()).collect(Collectors.toList());
+	}
+
+	/**
+	 * Reads a text file from the archive.
+	 * @param name Entry name.
+	 * @return File contents, or empty optional if there is no such file.
+	 * @throws IOException When the file cannot be read.
+	 */
+	public Optional<String> readString(String name) throws IOException {
+		ZipEntry entry = zip.getEntry(name);
+		if (entry == null) {
+			return Optional.empty();
+		}
+		try (InputStream in = zip.getInputStream(entry)) {
+			return Optional.of(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Creates a source file for an entry of this archive.
+	 * @param entry Zip entry.
+	 * @param typeName Name of top-level type in the entry.
+	 * @return Source file that is loaded from this archive.
+	 */
+	public SourceFile source(ZipEntry entry, String typeName) {
+		return new SourceFile() {
+
+			@Override
+			public String name() {
+				return path + "!/" + entry.getName();
+			}
+
+			@Override
+			public String typeName() {
+				return typeName;
+			}
+
+			@Override
+			public SourceUnit load() throws IOException {
+				// ZipFile is thread-safe, entries can be inflated by any I/O thread
+				try (InputStream in = zip.getInputStream(entry)) {
+					return SourcePrefetcher.decode(name(), ByteBuffer.wrap(in.readAllBytes()));
+				}
+			}
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+		zip.close();
+	}
+}
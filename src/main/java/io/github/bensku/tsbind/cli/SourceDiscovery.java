@@ -0,0 +1,311 @@
+package io.github.bensku.tsbind.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+
+import io.github.bensku.tsbind.SourceFile;
+import io.github.bensku.tsbind.SourcePrefetcher;
+import io.github.bensku.tsbind.SourceUnit;
+
+/**
+ * Finds input files that match include and exclude prefixes. Names of
+ * files and directories are their paths relative to input root, with
+ * dots as separators (e.g. {@code java.lang.String.java}).
+ *
+ * Directories that can't contain any included files are not walked.
+ * Archives are not opened as file systems; their entries are filtered by
+ * name. If a root contains a module declaration, packages that the module does
+ * not export are skipped as well.
+ *
+ */
+public class SourceDiscovery implements Closeable {
+
+	/**
+	 * Prefixes of included and excluded names.
+	 */
+	private final PrefixTrie includes, excludes;
+
+	/**
+	 * Suffix of file names that are included, e.g. ".java".
+	 */
+	private final String suffix;
+
+	/**
+	 * If packages not exported by modules should be skipped.
+	 */
+	private final boolean moduleExports;
+
+	/**
+	 * Number of package directories skipped because they were not exported.
+	 */
+	private final AtomicInteger unexported;
+
+	/**
+	 * Archives that have been opened.
+	 */
+	private final List<SourceArchive> archives;
+
+	public SourceDiscovery(List<String> include, List<String> exclude, String suffix, boolean moduleExports) {
+		this.includes = new PrefixTrie(include);
+		this.excludes = new PrefixTrie(exclude);
+		this.suffix = suffix;
+		this.moduleExports = moduleExports;
+		this.unexported = new AtomicInteger();
+		this.archives = Collections.synchronizedList(new ArrayList<>());
+	}
+
+	/**
+	 * Checks if a file with given name should be included.
+	 * @param name Dotted name.
+	 * @return Whether the file is included.
+	 */
+	public boolean isIncluded(String name) {
+		// Excludes are processed after includes
+		return includes.matches(name) && !excludes.matches(name);
+	}
+
+	/**
+	 * Checks if a directory with given name could contain included files.
+	 * @param name Dotted name of directory.
+	 * @return Whether the directory needs to be walked.
+	 */
+	public boolean isWalked(String name) {
+		if (excludes.matches(name)) {
+			return false; // Everything inside is excluded
+		}
+		// Names of everything inside start with this
+		String prefix = name + ".";
+		return includes.matches(prefix) || includes.hasPrefixStartingWith(prefix);
+	}
+
+	private boolean isSourceFile(String fileName) {
+		return fileName.endsWith(suffix) && !fileName.equals("package-info.java")
+				&& !fileName.equals("module-info.java");
+	}
+
+	/**
+	 * Finds files under given root directory.
+	 * @param root Root directory.
+	 * @return Included files, in the order they were found in.
+	 */
+	public List<Path> findFiles(Path root) {
+		List<Path> files = new ArrayList<>();
+		walk(root, (file, name) -> files.add(file));
+		return files;
+	}
+
+	/**
+	 * Walks a root directory.
+	 * @param root Root directory.
+	 * @param found Called with path and dotted name of each included file.
+	 */
+	private void walk(Path root, BiConsumer<Path, String> found) {
+		Deque<String> dirNames = new ArrayDeque<>();
+		ModuleExports exports = moduleExports && Files.isDirectory(root) ? ModuleExports.read(root) : null;
+		try {
+			Files.walkFileTree(root, new SimpleFileVisitor<>() {
+
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					if (dir.equals(root)) {
+						dirNames.push("");
+						return FileVisitResult.CONTINUE;
+					}
+					String parent = dirNames.peek();
+					String name = parent.isEmpty() ? dir.getFileName().toString()
+							: parent + "." + dir.getFileName();
+					if (!isWalked(name)) {
+						return FileVisitResult.SKIP_SUBTREE;
+					} else if (exports != null && !exports.mightContainExported(name)) {
+						unexported.incrementAndGet();
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+					dirNames.push(name);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+					if (e != null) {
+						throw e;
+					}
+					dirNames.pop();
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					String fileName = file.getFileName().toString();
+					if (!isSourceFile(fileName)) {
+						return FileVisitResult.CONTINUE;
+					}
+					if (!attrs.isRegularFile() && !(attrs.isSymbolicLink() && Files.isRegularFile(file))) {
+						return FileVisitResult.CONTINUE;
+					}
+					String parent = dirNames.isEmpty() ? "" : dirNames.peek(); // Empty if root is a file
+					if (exports != null && !exports.isExported(parent)) {
+						return FileVisitResult.CONTINUE; // e.g. internal subpackage of exported package
+					}
+					String name = parent.isEmpty() ? fileName : parent + "." + fileName;
+					if (isIncluded(name)) {
+						found.accept(file, name);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Finds files under all given root directories. Roots are walked in
+	 * parallel.
+	 * @param roots Root directories.
+	 * @return Included files, in order of their roots.
+	 */
+	public List<Path> findFiles(List<Path> roots) {
+		return roots.parallelStream()
+				.map(this::findFiles)
+				.flatMap(List::stream)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Finds source files in given inputs. Inputs are directories or zip
+	 * archives; the latter are opened, and stay open until this is closed.
+	 * Inputs are processed in parallel.
+	 * @param inputs Input directories and archives.
+	 * @param offset Path offset inside every input.
+	 * @return Included files, in order of their inputs.
+	 */
+	public List<SourceFile> findSources(List<Path> inputs, String offset) {
+		return inputs.parallelStream().map(input -> {
+			if (Files.isDirectory(input)) {
+				List<SourceFile> files = new ArrayList<>();
+				walk(input.resolve(offset), (file, name) -> files.add(new PathSource(file, typeName(name))));
+				return files;
+			}
+			SourceArchive archive;
+			try {
+				archive = new SourceArchive(input);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			archives.add(archive);
+			return findSources(archive, offset);
+		}).flatMap(List::stream).collect(Collectors.toList());
+	}
+
+	private List<SourceFile> findSources(SourceArchive archive, String offset) {
+		String prefix = offset.isEmpty() || offset.endsWith("/") ? offset : offset + "/";
+		ModuleExports exports = null;
+		if (moduleExports) {
+			try {
+				exports = archive.readString(prefix + "module-info.java")
+						.map(code -> ModuleExports.parse(code, prefix + "module-info.java")).orElse(null);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		// Unlike directories, entries can be filtered by their names alone
+		List<SourceFile> files = new ArrayList<>();
+		Set<String> unexportedPackages = new HashSet<>();
+		for (ZipEntry entry : archive.entries()) {
+			if (!entry.getName().startsWith(prefix)) {
+				continue;
+			}
+			String path = entry.getName().substring(prefix.length());
+			int slash = path.lastIndexOf('/');
+			String fileName = path.substring(slash + 1);
+			if (!isSourceFile(fileName)) {
+				continue;
+			}
+			String packageName = slash == -1 ? "" : path.substring(0, slash).replace('/', '.');
+			String name = packageName.isEmpty() ? fileName : packageName + "." + fileName;
+			if (!isIncluded(name)) {
+				continue;
+			}
+			if (exports != null && !exports.isExported(packageName)) {
+				unexportedPackages.add(packageName);
+				continue;
+			}
+			files.add(archive.source(entry, typeName(name)));
+		}
+		unexported.addAndGet(unexportedPackages.size());
+		return files;
+	}
+
+	private String typeName(String fileName) {
+		return fileName.substring(0, fileName.length() - suffix.length());
+	}
+
+	/**
+	 * Source file in a directory.
+	 */
+	private static class PathSource implements SourceFile {
+
+		private final Path path;
+
+		private final String typeName;
+
+		PathSource(Path path, String typeName) {
+			this.path = path;
+			this.typeName = typeName;
+		}
+
+		@Override
+		public String name() {
+			return path.toString();
+		}
+
+		@Override
+		public String typeName() {
+			return typeName;
+		}
+
+		@Override
+		public SourceUnit load() throws IOException {
+			return SourcePrefetcher.load(path);
+		}
+	}
+
+	/**
+	 * Closes archives opened by {@link #findSources(List, String)}.
+	 * @throws IOException When closing an archive fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (SourceArchive archive : archives) {
+			archive.close();
+		}
+		archives.clear();
+	}
+
+	/**
+	 * Gets number of package directories (or packages in archives) that
+	 * were skipped, because their modules did not export them.
+	 * @return Number of skipped packages.
+	 */
+	public int unexported() {
+		return unexported.get();
+	}
+}